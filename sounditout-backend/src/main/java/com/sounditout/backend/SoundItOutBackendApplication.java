@@ -6,12 +6,14 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.sounditout.backend")
 @EntityScan(basePackages = "com.sounditout.backend.domainLayer.entity")
 @EnableJpaRepositories(basePackages = "com.sounditout.backend.repositories")
 @EnableJpaAuditing
 @EnableCaching
+@EnableScheduling
 public class SoundItOutBackendApplication {
 
 	public static void main(String[] args) {
@@ -1,12 +1,15 @@
 package com.sounditout.backend.config;
 
+import com.sounditout.backend.repositories.EmbeddingStorage;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import org.springframework.ai.document.MetadataMode;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingOptions;
 import org.springframework.ai.embedding.EmbeddingModel;
 
 
@@ -23,8 +26,22 @@ public class AiConfig {
         return new OpenAiChatModel(api);
     }
 
+    /**
+     * Always the configured spring.ai.openai.embedding.model, so the storage settings never change
+     * which vector space new rows and queries are in.
+     * ai.embedding.dimensions > 0 asks the API for shorter vectors (text-embedding-3 models only),
+     * so requests and storage shrink together. It only takes effect once the column is no wider
+     * than that (see EmbeddingStorage#modelDimensions); before that, full vectors are cut on write.
+     */
     @Bean
-    public EmbeddingModel embeddingModel(OpenAiApi api) {
-        return new OpenAiEmbeddingModel(api);
+    public EmbeddingModel embeddingModel(OpenAiApi api,
+                                         EmbeddingStorage embeddingStorage,
+                                         @Value("${spring.ai.openai.embedding.model:text-embedding-3-small}") String model) {
+        OpenAiEmbeddingOptions.Builder options = OpenAiEmbeddingOptions.builder().withModel(model);
+        int dimensions = embeddingStorage.modelDimensions();
+        if (dimensions > 0) {
+            options.withDimensions(dimensions);
+        }
+        return new OpenAiEmbeddingModel(api, MetadataMode.EMBED, options.build());
     }
 }
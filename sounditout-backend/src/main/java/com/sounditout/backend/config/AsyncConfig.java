@@ -1,18 +1,35 @@
 package com.sounditout.backend.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Slf4j
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    // Same switch that moves Tomcat onto virtual threads (needs Java 21+).
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
     // Dedicated pool for AI tasks so they don't block request threads.
+    // With virtual threads: one thread per task, at most ai.executor.virtual-concurrency-limit at once;
+    // like a full pool, a saturated executor rejects (callers answer 503 or fall back) instead of blocking.
     @Bean(name = "aiExecutor")
-    public TaskExecutor aiExecutor() {
+    public TaskExecutor aiExecutor(@Value("${ai.executor.virtual-concurrency-limit:64}") int virtualLimit) {
+        if (useVirtualThreads()) {
+            return new BoundedVirtualExecutor("ai-", virtualLimit);
+        }
         ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
         exec.setThreadNamePrefix("ai-");
         exec.setCorePoolSize(4);
@@ -21,4 +38,107 @@ public class AsyncConfig {
         exec.initialize();
         return exec;
     }
+
+    // Workers for the global re-embedding job; sized by ai.reembed.parallelism.
+    @Bean(name = "reembedExecutor")
+    public TaskExecutor reembedExecutor(@Value("${ai.reembed.parallelism:4}") int parallelism) {
+        if (useVirtualThreads()) {
+            return virtualExecutor("reembed-", parallelism);
+        }
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setThreadNamePrefix("reembed-");
+        exec.setCorePoolSize(parallelism);
+        exec.setMaxPoolSize(parallelism);
+        exec.setQueueCapacity(parallelism * 4);
+        exec.initialize();
+        return exec;
+    }
+
+    // Loads behind async caches (per-student vectors, query embeddings, role checks, row counts).
+    // They run here instead of inside Caffeine's compute lock, so a blocking load never pins a
+    // virtual thread and concurrent misses for one key share a single load. Virtual mode: one
+    // thread per load. Pool mode: a full pool runs the load on the caller rather than failing it.
+    @Bean(name = "cacheLoadExecutor")
+    public TaskExecutor cacheLoadExecutor() {
+        if (useVirtualThreads()) {
+            SimpleAsyncTaskExecutor exec = new SimpleAsyncTaskExecutor("cache-load-");
+            exec.setVirtualThreads(true);
+            return exec;
+        }
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setThreadNamePrefix("cache-load-");
+        exec.setCorePoolSize(4);
+        exec.setMaxPoolSize(16);
+        exec.setQueueCapacity(500);
+        exec.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        exec.initialize();
+        return exec;
+    }
+
+    // YouTube cache loads and refreshes (HTTP + yt_search_cache). Kept apart from aiExecutor so a
+    // burst of cold topics can't take the slots OpenAI calls need, and small on purpose: the API
+    // quota is the real limit. A full queue runs the load on the caller instead of failing it.
+    @Bean(name = "youtubeExecutor")
+    public TaskExecutor youtubeExecutor(@Value("${youtube.executor.threads:4}") int threads) {
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setThreadNamePrefix("youtube-");
+        exec.setCorePoolSize(Math.max(threads, 1));
+        exec.setMaxPoolSize(Math.max(threads, 1));
+        exec.setQueueCapacity(100);
+        exec.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        exec.initialize();
+        return exec;
+    }
+
+    private boolean useVirtualThreads() {
+        if (!virtualThreadsRequested) return false;
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; using thread pools",
+                    Runtime.version().feature());
+            return false;
+        }
+        return true;
+    }
+
+    // The limit keeps the number of in-flight OpenAI calls bounded; callers wait for a slot
+    // instead of being rejected. Only for the re-embedding job, whose own coordinator thread submits.
+    private static TaskExecutor virtualExecutor(String prefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor exec = new SimpleAsyncTaskExecutor(prefix);
+        exec.setVirtualThreads(true);
+        exec.setConcurrencyLimit(Math.max(concurrencyLimit, 1));
+        return exec;
+    }
+
+    /** One virtual thread per task, at most {@code limit} running; rejects when all slots are taken. */
+    static final class BoundedVirtualExecutor implements TaskExecutor {
+        private final SimpleAsyncTaskExecutor delegate;
+        private final Semaphore slots;
+        private final int limit;
+
+        BoundedVirtualExecutor(String prefix, int limit) {
+            this.limit = Math.max(limit, 1);
+            this.slots = new Semaphore(this.limit);
+            this.delegate = new SimpleAsyncTaskExecutor(prefix);
+            this.delegate.setVirtualThreads(true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!slots.tryAcquire()) {
+                throw new TaskRejectedException("All " + limit + " AI executor slots are busy");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                throw e;
+            }
+        }
+    }
 }
@@ -12,12 +12,18 @@ import java.time.Duration;
 @Configuration
 public class CacheConfig {
 
+    // Metric name of QueryEmbeddingCache's cache
+    public static final String QUERY_EMBEDDING_CACHE = "queryEmbedding";
+
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager mgr = new CaffeineCacheManager("ytSearch");
+        // ytSearch and queryEmbedding are async caches owned by YouTubeSearchService and
+        // QueryEmbeddingCache; this default only applies to caches created on demand.
+        CaffeineCacheManager mgr = new CaffeineCacheManager();
         mgr.setCaffeine(Caffeine.newBuilder()
                 .maximumSize(2_000)                     // adjust as you like
                 .expireAfterWrite(Duration.ofHours(24)) // 24h TTL
+                .recordStats()
         );
         return mgr;
     }
@@ -0,0 +1,66 @@
+package com.sounditout.backend.domainLayer.entity;
+
+import com.sounditout.backend.domainLayer.enums.ReembedJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "reembed_job")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReembedJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReembedJobStatus status;
+
+    // true = re-embed even when the stored content hash matches (e.g. after a model change)
+    @Column(nullable = false)
+    private boolean force;
+
+    @Column(name = "total_reports", nullable = false)
+    private long totalReports;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(nullable = false)
+    private long embedded;
+
+    @Column(nullable = false)
+    private long failed;
+
+    // Checkpoint: every report with id <= lastReportId has been handled
+    @Column(name = "last_report_id", nullable = false)
+    private long lastReportId;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @Column(name = "started_at", nullable = false)
+    private OffsetDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+
+    // Instance running the job and until when; only written by ReembedJobRepository's lease queries
+    @Column(name = "lease_owner", insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "lease_until", insertable = false, updatable = false)
+    private OffsetDateTime leaseUntil;
+}
@@ -28,6 +28,10 @@ public class ReportEmbedding {
     @Column(nullable = false, columnDefinition = "text")
     private String content;
 
+    // SHA-256 of the embedded document; unchanged reports skip re-embedding
+    @Column(name = "content_hash")
+    private String contentHash;
+
     // created in DB with DEFAULT now()
     @Column(name = "created_at", insertable = false, updatable = false)
     private OffsetDateTime createdAt;
@@ -1,5 +1,6 @@
 package com.sounditout.backend.domainLayer.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.vladmihalcea.hibernate.type.json.JsonType;
 import jakarta.persistence.*;
@@ -31,6 +32,11 @@ public class StudyPlan {
     @Column(name = "goals")
     private String goals;
 
+    // SHA-256 of the normalized goal, used to reuse plans within a week
+    @JsonIgnore
+    @Column(name = "goal_hash")
+    private String goalHash;
+
     @Type(JsonType.class)
     @Column(name = "tasks", columnDefinition = "jsonb", nullable = false)
     private JsonNode tasks;
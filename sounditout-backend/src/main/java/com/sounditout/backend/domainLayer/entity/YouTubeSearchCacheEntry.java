@@ -0,0 +1,45 @@
+package com.sounditout.backend.domainLayer.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vladmihalcea.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+import java.time.OffsetDateTime;
+
+/** One persisted YouTube search result list (L2 of the ytSearch cache). */
+@Entity
+@Table(name = "yt_search_cache")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class YouTubeSearchCacheEntry {
+
+    @Id
+    @Column(name = "cache_key")
+    private String cacheKey;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "max_results", nullable = false)
+    private int maxResults;
+
+    @Type(JsonType.class)
+    @Column(name = "videos", columnDefinition = "jsonb", nullable = false)
+    private JsonNode videos;
+
+    @Column(name = "fetched_at", nullable = false)
+    private OffsetDateTime fetchedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Column(name = "hits", nullable = false)
+    private long hits;
+}
@@ -0,0 +1,8 @@
+package com.sounditout.backend.domainLayer.enums;
+
+public enum ReembedJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
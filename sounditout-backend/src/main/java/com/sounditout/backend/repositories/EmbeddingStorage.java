@@ -0,0 +1,230 @@
+package com.sounditout.backend.repositories;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Storage format of report_embedding.embedding, as it is in the database right now.
+ *
+ * The column type (vector or halfvec, and its dimension count) is read from the catalog and
+ * re-read every minute, so instances notice a conversion done elsewhere. Query and insert
+ * parameters are cast to it and cut to its length with {@link #fit}, which keeps the HNSW
+ * index usable whatever the format is.
+ *
+ * The target format is {@code ai.embedding.storage.type} + {@code ai.embedding.dimensions};
+ * {@link #convert} switches the column in place (convert_report_embedding_storage, V13/V14).
+ * Rows record the model that embedded them (embedding_model, V15): fewer dimensions are only
+ * a prefix of the same embedding for text-embedding-3 models.
+ */
+@Slf4j
+@Component
+public class EmbeddingStorage {
+
+    private static final long REFRESH_NANOS = 60_000_000_000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingStorageFormat.Type configuredType;
+    private final int configuredDimensions;
+    private final String model;
+
+    private volatile EmbeddingStorageFormat current;
+    private volatile long loadedAtNanos;
+
+    public EmbeddingStorage(JdbcTemplate jdbcTemplate,
+                            @Value("${ai.embedding.storage.type:VECTOR}") String configuredType,
+                            @Value("${ai.embedding.dimensions:0}") int configuredDimensions,
+                            @Value("${spring.ai.openai.embedding.model:text-embedding-3-small}") String model) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configuredType = EmbeddingStorageFormat.Type.valueOf(configuredType.trim().toUpperCase(Locale.ROOT));
+        this.configuredDimensions = configuredDimensions;
+        this.model = model;
+    }
+
+    /** The embedding model new rows are written with (stored in embedding_model). */
+    public String model() {
+        return model;
+    }
+
+    /** Whether the first n dimensions of this model's vectors, re-normalized, are a valid embedding. */
+    static boolean supportsShortening(String model) {
+        return model != null && model.startsWith("text-embedding-3");
+    }
+
+    /** The column's current type. */
+    public EmbeddingStorageFormat current() {
+        EmbeddingStorageFormat format = current;
+        if (format == null || System.nanoTime() - loadedAtNanos > REFRESH_NANOS) {
+            format = load();
+        }
+        return format;
+    }
+
+    /** Configured target; dimensions 0 (unset) keep the column's current count. */
+    public EmbeddingStorageFormat configured() {
+        int dims = configuredDimensions > 0 ? configuredDimensions : current().dimensions();
+        return new EmbeddingStorageFormat(configuredType, dims);
+    }
+
+    /**
+     * The {@code dimensions} to request from the embedding API, 0 for the model default.
+     * Never fewer than the column holds: until the column has been converted, a configured
+     * 512 would make every write and search fail in {@link #fit}, so full-size vectors are
+     * requested and cut down here instead (the same result for text-embedding-3 models).
+     */
+    public int modelDimensions() {
+        if (configuredDimensions <= 0) return 0;
+        if (!supportsShortening(model)) {
+            log.warn("ai.embedding.dimensions={} is ignored: {} has no dimensions option", configuredDimensions, model);
+            return 0;
+        }
+        try {
+            int columnDims = current().dimensions();
+            if (configuredDimensions < columnDims) {
+                log.warn("ai.embedding.dimensions={} but report_embedding.embedding is {}; requesting full-size "
+                        + "embeddings until the column is converted (POST /api/admin/ai/embedding-storage) "
+                        + "and the app restarted", configuredDimensions, current());
+                return 0;
+            }
+            return configuredDimensions;
+        } catch (Exception e) {
+            log.warn("Could not read the embedding column type, requesting full-size embeddings: {}", e.toString());
+            return 0;
+        }
+    }
+
+    /** {@code ?::halfvec} etc.: a vector parameter typed like the column, so the index applies. */
+    public String param() {
+        return "?::" + current().type().sqlName();
+    }
+
+    /**
+     * The vector as the column stores it: longer inputs keep their first n dimensions and are
+     * re-normalized (what the API's {@code dimensions} option does for text-embedding-3 models).
+     */
+    public float[] fit(float[] v) {
+        int dims = current().dimensions();
+        if (v.length == dims) return v;
+        if (v.length < dims) {
+            throw new IllegalStateException("Embedding has " + v.length
+                    + " dimensions but report_embedding.embedding is " + current());
+        }
+        return truncate(v, dims);
+    }
+
+    static float[] truncate(float[] v, int dims) {
+        float[] out = Arrays.copyOf(v, dims);
+        double sum = 0;
+        for (float x : out) sum += x * x;
+        if (sum == 0) return out;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < out.length; i++) out[i] *= inv;
+        return out;
+    }
+
+    /**
+     * Convert the column (and rebuild its HNSW and binary-quantized indexes) to {@code target}.
+     * Rewrites the table under an exclusive lock, so searches and writes wait until it's done.
+     * Returns the new format.
+     *
+     * Fewer dimensions need every row to come from a text-embedding-3 model; otherwise this throws
+     * IllegalStateException and the rows have to be re-embedded with such a model first.
+     */
+    public EmbeddingStorageFormat convert(EmbeddingStorageFormat target) {
+        if (target.dimensions() < current().dimensions()) {
+            Map<String, Long> others = new LinkedHashMap<>(storedModels());
+            others.keySet().removeIf(EmbeddingStorage::supportsShortening);
+            if (!others.isEmpty()) {
+                throw new IllegalStateException("Only text-embedding-3 vectors can be cut to fewer dimensions, but "
+                        + "rows per model " + others + " (null = unknown) were not; re-embed them first with "
+                        + "POST /api/admin/ai/reembed-jobs?force=true");
+            }
+        }
+        long t0 = System.nanoTime();
+        String applied = jdbcTemplate.queryForObject("SELECT convert_report_embedding_storage(?, ?)",
+                String.class, target.type().sqlName(), target.dimensions());
+        EmbeddingStorageFormat format = load();
+        log.info("report_embedding.embedding is now {} ({} ms)", applied, (System.nanoTime() - t0) / 1_000_000);
+        return format;
+    }
+
+    /** Row count per embedding_model; rows written before V15 are under null. */
+    public Map<String, Long> storedModels() {
+        Map<String, Long> models = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT embedding_model, count(*) AS rows
+                FROM report_embedding
+                GROUP BY embedding_model
+                ORDER BY embedding_model NULLS FIRST
+                """, rs -> {
+            models.put(rs.getString("embedding_model"), rs.getLong("rows"));
+        });
+        return models;
+    }
+
+    /** Row count, average stored vector size and on-disk sizes of the table and its vector indexes. */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("format", current().sqlType());
+        out.put("configured", configured().sqlType());
+        out.put("model", model);
+        out.put("storedModels", storedModels());
+        jdbcTemplate.query("""
+                SELECT count(*) AS rows,
+                       coalesce(avg(pg_column_size(embedding)), 0) AS avg_vector_bytes,
+                       pg_total_relation_size('report_embedding') AS table_bytes,
+                       coalesce(pg_relation_size(to_regclass('idx_embedding_vector_hnsw')), 0) AS hnsw_index_bytes,
+                       coalesce(pg_relation_size(to_regclass('idx_embedding_bq_hnsw')), 0) AS bq_index_bytes
+                FROM report_embedding
+                """, rs -> {
+            out.put("rows", rs.getLong("rows"));
+            out.put("avgVectorBytes", Math.round(rs.getDouble("avg_vector_bytes")));
+            out.put("tableBytes", rs.getLong("table_bytes"));
+            out.put("hnswIndexBytes", rs.getLong("hnsw_index_bytes"));
+            out.put("binaryIndexBytes", rs.getLong("bq_index_bytes"));
+        });
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkConfiguredFormat() {
+        try {
+            EmbeddingStorageFormat live = load();
+            EmbeddingStorageFormat wanted = configured();
+            if (!live.equals(wanted)) {
+                log.warn("report_embedding.embedding is {} but {} is configured; "
+                        + "POST /api/admin/ai/embedding-storage to convert it", live, wanted);
+            }
+            Map<String, Long> others = new LinkedHashMap<>(storedModels());
+            others.remove(model);
+            if (!others.isEmpty()) {
+                log.warn("Rows embedded by other models than {} are stored ({}; null = unknown) and won't match "
+                        + "its query vectors; POST /api/admin/ai/reembed-jobs?force=true", model, others);
+            }
+        } catch (Exception e) {
+            log.warn("Could not read the embedding column type: {}", e.toString());
+        }
+    }
+
+    private EmbeddingStorageFormat load() {
+        String sqlType = jdbcTemplate.queryForObject("""
+                SELECT format_type(atttypid, atttypmod)
+                FROM pg_attribute
+                WHERE attrelid = 'report_embedding'::regclass
+                  AND attname = 'embedding'
+                  AND NOT attisdropped
+                """, String.class);
+        EmbeddingStorageFormat format = EmbeddingStorageFormat.parse(sqlType);
+        current = format;
+        loadedAtNanos = System.nanoTime();
+        return format;
+    }
+}
@@ -0,0 +1,57 @@
+package com.sounditout.backend.repositories;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Column type of report_embedding.embedding: float32 {@code vector(n)} or float16 {@code halfvec(n)}.
+ * Sizes follow pgvector's on-disk layout (8-byte header, then the elements).
+ */
+public record EmbeddingStorageFormat(Type type, int dimensions) {
+
+    public enum Type {
+        VECTOR(4), HALFVEC(2);
+
+        private final int bytesPerDimension;
+
+        Type(int bytesPerDimension) {
+            this.bytesPerDimension = bytesPerDimension;
+        }
+
+        public int bytesPerDimension() {
+            return bytesPerDimension;
+        }
+
+        public String sqlName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final Pattern SQL_TYPE = Pattern.compile("(vector|halfvec)\\((\\d+)\\)");
+
+    /** e.g. {@code halfvec(512)}. */
+    public String sqlType() {
+        return type.sqlName() + "(" + dimensions + ")";
+    }
+
+    /** Stored size of one value. */
+    public long bytesPerVector() {
+        return 8L + (long) type.bytesPerDimension() * dimensions;
+    }
+
+    /** Parse {@code format_type()} output such as {@code vector(1536)}. */
+    public static EmbeddingStorageFormat parse(String sqlType) {
+        Matcher m = SQL_TYPE.matcher(sqlType == null ? "" : sqlType.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Not a supported embedding column type: " + sqlType);
+        }
+        return new EmbeddingStorageFormat(Type.valueOf(m.group(1).toUpperCase(Locale.ROOT)),
+                Integer.parseInt(m.group(2)));
+    }
+
+    @Override
+    public String toString() {
+        return sqlType();
+    }
+}
@@ -0,0 +1,76 @@
+package com.sounditout.backend.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Runs a query on a forward-only server-side cursor and hands each row to a callback as
+ * it arrives, so nothing is collected in memory.
+ *
+ * The PostgreSQL driver only uses a cursor when autocommit is off and a fetch size is
+ * set, hence the read-only transaction (joined if the caller already has one) and
+ * {@code app.stream.fetch-size}. Handlers usually flush their output every
+ * {@link #fetchSize()} rows.
+ */
+@Component
+public class JdbcCursor {
+
+    /** Receives one mapped row; rowNumber starts at 1. */
+    @FunctionalInterface
+    public interface RowHandler<T> {
+        void handle(T row, long rowNumber) throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTx;
+
+    @Value("${app.stream.fetch-size:500}")
+    private int fetchSize;
+
+    public JdbcCursor(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public int fetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Stream the rows of {@code sql} through {@code handler}; returns the row count.
+     * An IOException from the handler (typically the client going away) aborts the query
+     * and is rethrown as {@link UncheckedIOException}.
+     */
+    public <T> long forEach(String sql, RowMapper<T> mapper, RowHandler<T> handler, Object... args) {
+        return readOnlyTx.execute(status -> {
+            long[] count = {0};
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.length; i++) {
+                    ps.setObject(i + 1, args[i]);
+                }
+                return ps;
+            }, rs -> {
+                long n = ++count[0];
+                try {
+                    handler.handle(mapper.mapRow(rs, (int) n - 1), n);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return count[0];
+        });
+    }
+}
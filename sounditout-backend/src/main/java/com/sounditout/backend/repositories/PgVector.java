@@ -0,0 +1,174 @@
+package com.sounditout.backend.repositories;
+
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGobject;
+
+import java.sql.SQLException;
+
+/**
+ * JDBC parameter for a pgvector {@code vector} value.
+ *
+ * Binds as the native {@code vector} type, so Postgres doesn't need a
+ * {@code CAST(text AS vector)}. The driver sends it in pgvector's binary wire
+ * format when binary transfer is enabled for the vector OID
+ * ({@code binaryTransferEnable=<oid>}); otherwise it falls back to the text form,
+ * which is written into a single char buffer instead of one String.format per element.
+ */
+public class PgVector extends PGobject implements PGBinaryObject {
+
+    // pgvector binary layout: int16 dim, int16 unused, float4[dim] (big-endian)
+    private static final int HEADER_BYTES = 4;
+
+    // Above this the fixed-point path would overflow a long; never happens for embeddings
+    private static final double FIXED_POINT_LIMIT = 1e12;
+
+    private float[] values;
+
+    public PgVector() {
+        setType("vector");
+    }
+
+    public PgVector(float[] values) {
+        this();
+        this.values = values;
+    }
+
+    public static PgVector of(float[] values) {
+        return new PgVector(values);
+    }
+
+    public float[] toArray() {
+        return values;
+    }
+
+    // ---------- Text format ----------
+
+    @Override
+    public String getValue() {
+        return values == null ? null : format(values);
+    }
+
+    @Override
+    public void setValue(String value) throws SQLException {
+        this.values = value == null ? null : parse(value);
+    }
+
+    /** Format as a pgvector literal, [v1,v2,...], with 6 decimals like the old String.format path. */
+    public static String format(float[] v) {
+        char[] buf = new char[2 + v.length * 24];
+        int pos = 0;
+        buf[pos++] = '[';
+        for (int i = 0; i < v.length; i++) {
+            if (i > 0) buf[pos++] = ',';
+            pos = appendFixed6(buf, pos, v[i]);
+        }
+        buf[pos++] = ']';
+        return new String(buf, 0, pos);
+    }
+
+    /** Parse a pgvector text literal back into floats. */
+    public static float[] parse(String literal) throws SQLException {
+        String s = literal.trim();
+        if (s.length() < 2 || s.charAt(0) != '[' || s.charAt(s.length() - 1) != ']') {
+            throw new SQLException("Not a pgvector literal: " + s);
+        }
+        if (s.length() == 2) return new float[0];
+
+        int count = 1;
+        for (int i = 1; i < s.length() - 1; i++) {
+            if (s.charAt(i) == ',') count++;
+        }
+        float[] out = new float[count];
+        int start = 1;
+        for (int i = 0; i < count; i++) {
+            int end = s.indexOf(',', start);
+            if (end < 0) end = s.length() - 1;
+            out[i] = Float.parseFloat(s.substring(start, end).trim());
+            start = end + 1;
+        }
+        return out;
+    }
+
+    private static int appendFixed6(char[] buf, int pos, float f) {
+        double d = f;
+        if (Double.isNaN(d) || Math.abs(d) >= FIXED_POINT_LIMIT) {
+            String s = Float.toString(f);
+            s.getChars(0, s.length(), buf, pos);
+            return pos + s.length();
+        }
+        if (d < 0) {
+            d = -d;
+            buf[pos++] = '-';
+        }
+        long scaled = Math.round(d * 1_000_000d);
+        long intPart = scaled / 1_000_000;
+        int frac = (int) (scaled % 1_000_000);
+
+        pos = appendLong(buf, pos, intPart);
+        buf[pos++] = '.';
+        for (int div = 100_000; div > 0; div /= 10) {
+            buf[pos++] = (char) ('0' + (frac / div) % 10);
+        }
+        return pos;
+    }
+
+    private static int appendLong(char[] buf, int pos, long n) {
+        if (n == 0) {
+            buf[pos++] = '0';
+            return pos;
+        }
+        int start = pos;
+        while (n > 0) {
+            buf[pos++] = (char) ('0' + (n % 10));
+            n /= 10;
+        }
+        // digits were written least-significant first
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            char t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+        return pos;
+    }
+
+    // ---------- Binary format ----------
+
+    @Override
+    public int lengthInBytes() {
+        return values == null ? 0 : HEADER_BYTES + values.length * Float.BYTES;
+    }
+
+    @Override
+    public void toBytes(byte[] bytes, int offset) {
+        int dim = values.length;
+        bytes[offset] = (byte) (dim >>> 8);
+        bytes[offset + 1] = (byte) dim;
+        bytes[offset + 2] = 0;
+        bytes[offset + 3] = 0;
+        int pos = offset + HEADER_BYTES;
+        for (float f : values) {
+            int bits = Float.floatToIntBits(f);
+            bytes[pos] = (byte) (bits >>> 24);
+            bytes[pos + 1] = (byte) (bits >>> 16);
+            bytes[pos + 2] = (byte) (bits >>> 8);
+            bytes[pos + 3] = (byte) bits;
+            pos += 4;
+        }
+    }
+
+    @Override
+    public void setByteValue(byte[] bytes, int offset) throws SQLException {
+        int dim = ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        float[] out = new float[dim];
+        int pos = offset + HEADER_BYTES;
+        for (int i = 0; i < dim; i++) {
+            int bits = ((bytes[pos] & 0xFF) << 24)
+                    | ((bytes[pos + 1] & 0xFF) << 16)
+                    | ((bytes[pos + 2] & 0xFF) << 8)
+                    | (bytes[pos + 3] & 0xFF);
+            out[i] = Float.intBitsToFloat(bits);
+            pos += 4;
+        }
+        this.values = out;
+    }
+}
@@ -1,13 +1,40 @@
 package com.sounditout.backend.repositories;
 
 import com.sounditout.backend.domainLayer.entity.ProgressReport;
+import com.sounditout.backend.weblayer.dtos.ProgressReportResponse;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface ProgressReportRepository extends JpaRepository<ProgressReport, Long> {
+public interface ProgressReportRepository extends JpaRepository<ProgressReport, Long>, ProgressReportRepositoryCustom {
+
+    // Constructor expression for read endpoints: one query, no managed entities.
+    // r.student.id is the FK column itself, so it doesn't join student.
+    String RESPONSE = "new com.sounditout.backend.weblayer.dtos.ProgressReportResponse("
+            + "r.id, r.date, r.lessonTopic, r.initialGradeLevel, r.difficulty, r.milestone, r.notes, "
+            + "r.student.id, r.accomplishments, r.improvementsNeeded)";
+
     List<ProgressReport> findByStudentId(Long studentId);
-}
 
+    /** Keyset page over all reports, used by the global re-embedding job. */
+    List<ProgressReport> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /** Keyset page of one student's reports, in id order (idx_progress_report_student_keyset). */
+    List<ProgressReport> findByStudentIdAndIdGreaterThanOrderByIdAsc(Long studentId, Long afterId, Limit limit);
+
+    /** Same page as above, projected straight into the response DTO. */
+    @Query("SELECT " + RESPONSE + " FROM ProgressReport r"
+            + " WHERE r.student.id = :studentId AND r.id > :afterId ORDER BY r.id")
+    List<ProgressReportResponse> findResponsePage(@Param("studentId") Long studentId,
+                                                  @Param("afterId") Long afterId,
+                                                  Limit limit);
+
+    /** Reports of the student linked to this user account (one join instead of a separate lookup). */
+    @Query("SELECT " + RESPONSE + " FROM ProgressReport r WHERE r.student.user.id = :userId ORDER BY r.id")
+    List<ProgressReportResponse> findResponsesByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,19 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.domainLayer.entity.ProgressReport;
+
+import java.util.List;
+
+/**
+ * JDBC-backed bulk writes for {@link ProgressReportRepository}. The entity uses IDENTITY
+ * ids, which makes Hibernate insert one row per round trip; here ids are taken from the
+ * column's sequence up front so the inserts can go out as one JDBC batch.
+ */
+public interface ProgressReportRepositoryCustom {
+
+    /**
+     * Insert new reports (student set, id null) in one batch and assign their ids.
+     * All rows are written or none. Returns the same list.
+     */
+    List<ProgressReport> insertAll(List<ProgressReport> reports);
+}
@@ -0,0 +1,49 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.domainLayer.entity.ProgressReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/** Picked up by Spring Data as the implementation of {@link ProgressReportRepositoryCustom}. */
+@RequiredArgsConstructor
+public class ProgressReportRepositoryImpl implements ProgressReportRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public List<ProgressReport> insertAll(List<ProgressReport> reports) {
+        if (reports.isEmpty()) return reports;
+
+        // One round trip for all ids; the identity column is GENERATED BY DEFAULT, so explicit ids are fine
+        List<Long> ids = jdbcTemplate.queryForList("""
+                SELECT nextval(pg_get_serial_sequence('progress_report', 'id'))
+                FROM generate_series(1, ?)
+                """, Long.class, reports.size());
+        for (int i = 0; i < reports.size(); i++) {
+            reports.get(i).setId(ids.get(i));
+        }
+
+        // Sent as multi-row INSERTs when the driver has reWriteBatchedInserts=true
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO progress_report (id, student_id, date, lesson_topic, initial_grade_level, difficulty,
+                                             milestone, notes, accomplishments, improvements_needed)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """, reports, reports.size(), (ps, r) -> {
+            ps.setLong(1, r.getId());
+            ps.setLong(2, r.getStudent().getId());
+            ps.setObject(3, r.getDate());
+            ps.setString(4, r.getLessonTopic());
+            ps.setInt(5, r.getInitialGradeLevel());
+            ps.setInt(6, r.getDifficulty());
+            ps.setString(7, r.getMilestone());
+            ps.setString(8, r.getNotes());
+            ps.setString(9, r.getAccomplishments());
+            ps.setString(10, r.getImprovementsNeeded());
+        });
+        return reports;
+    }
+}
@@ -0,0 +1,44 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.domainLayer.entity.ReembedJob;
+import com.sounditout.backend.domainLayer.enums.ReembedJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReembedJobRepository extends JpaRepository<ReembedJob, Long> {
+
+    Optional<ReembedJob> findFirstByStatusOrderByIdDesc(ReembedJobStatus status);
+
+    List<ReembedJob> findTop20ByOrderByIdDesc();
+
+    /**
+     * Take or renew the lease of a RUNNING job, unless another instance holds a live one.
+     * Uses the database clock, so instances don't need synchronized clocks. Returns 1 when held.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE reembed_job
+           SET lease_owner = :owner,
+               lease_until = now() + make_interval(secs => :leaseSeconds)
+         WHERE id = :id
+           AND status = 'RUNNING'
+           AND (lease_owner = :owner OR lease_until IS NULL OR lease_until < now())
+        """, nativeQuery = true)
+    int claimLease(@Param("id") Long id, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    /** Give the lease up so another instance can take the job over right away. */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE reembed_job SET lease_until = NULL WHERE id = :id AND lease_owner = :owner",
+            nativeQuery = true)
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner);
+}
@@ -0,0 +1,84 @@
+package com.sounditout.backend.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC-backed extensions to {@link ReportEmbeddingRepository} for work that
+ * Spring Data native queries can't do well (batched writes, vector binding).
+ * Vectors are bound as {@link PgVector} parameters rather than text literals.
+ */
+public interface ReportEmbeddingRepositoryCustom {
+
+    /** A stored embedding, used as a query when measuring search quality. */
+    record SampledEmbedding(Long studentId, Long reportId, float[] embedding) { }
+
+    /** A stored row with its vector, for loading the in-memory index. */
+    record StoredEmbedding(Long id, Long studentId, Long reportId, String subject, String content,
+                           OffsetDateTime createdAt, float[] embedding) { }
+
+    /** One embedding row ready to be written. */
+    record NewEmbedding(Long studentId, Long reportId, String subject, String content,
+                        String contentHash, float[] embedding) { }
+
+    /**
+     * Insert or replace the embedding of each report (one row per report_id)
+     * with a single JDBC batch. Returns the number of rows written.
+     */
+    int upsertEmbeddings(List<NewEmbedding> rows);
+
+    /** report_id -> content_hash for the reports that already have an embedding. */
+    Map<Long, String> findContentHashes(Collection<Long> reportIds);
+
+    /**
+     * Nearest-neighbor search returning cosine similarity (score).
+     * We sort by distance (smaller is closer) but also return score = 1 - distance.
+     * Optional subject filter (case-insensitive, contains).
+     *
+     * Uses {@link VectorSearchMode#AUTO}.
+     *
+     * Row: [id, student_id, report_id, subject, content, created_at, score]
+     */
+    List<Object[]> searchTopKWithScore(Long studentId, float[] queryVector, int k, String subjectFilter);
+
+    /** Same as above with an explicit search strategy. */
+    List<Object[]> searchTopKWithScore(Long studentId, float[] queryVector, int k,
+                                       String subjectFilter, VectorSearchMode mode);
+
+    /**
+     * Hybrid retrieval: a vector leg (as in {@link VectorSearchMode#AUTO}) and a full-text leg
+     * (any of the query's lexemes over subject + content, ranked by {@code ts_rank_cd}) each
+     * produce ranked candidates, fused with reciprocal-rank fusion, 1/(rrf_k + rank) summed over
+     * the legs, in one query.
+     * Catches exact terms (a phonics sound, a lesson name) that embeddings blur.
+     *
+     * Row: [id, student_id, report_id, subject, content, created_at, score, rrf, lexical_rank]
+     * where score is still cosine similarity, rows are ordered by rrf, and lexical_rank is
+     * null for rows the full-text leg didn't find.
+     */
+    List<Object[]> hybridSearchTopK(Long studentId, String queryText, float[] queryVector, int k,
+                                    String subjectFilter);
+
+    /**
+     * Only the full-text leg of {@link #hybridSearchTopK}, for callers that rank the vector leg
+     * themselves (the in-memory index) and fuse in process. Rows are in lexical rank order.
+     *
+     * Row: [id, student_id, report_id, subject, content, created_at, score], score = cosine similarity
+     */
+    List<Object[]> lexicalSearchTopK(Long studentId, String queryText, float[] queryVector, int k,
+                                     String subjectFilter);
+
+    /**
+     * Exact top-k report ids as if the column were stored in {@code format} (its first n
+     * dimensions, re-normalized). Admin benchmarking only: scans the student's rows.
+     */
+    List<Long> exactTopKReportIdsAs(Long studentId, float[] queryVector, int k, EmbeddingStorageFormat format);
+
+    /** Random stored embeddings (admin benchmarking only; sorts the whole table). */
+    List<SampledEmbedding> sampleEmbeddings(int n);
+
+    /** Every embedding row of one student, vectors included. */
+    List<StoredEmbedding> findAllForStudent(Long studentId);
+}
@@ -0,0 +1,497 @@
+package com.sounditout.backend.repositories;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/** Picked up by Spring Data as the implementation of {@link ReportEmbeddingRepositoryCustom}. */
+@Slf4j
+public class ReportEmbeddingRepositoryImpl implements ReportEmbeddingRepositoryCustom {
+
+    // Upper bound for hnsw.ef_search and for BINARY's Hamming candidate list
+    private static final int MAX_CANDIDATES = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EmbeddingStorage storage;
+
+    // Students with at most this many rows are searched exactly (AUTO mode)
+    @Value("${ai.search.exact-max-rows:2000}")
+    private long exactMaxRows;
+
+    // hnsw.ef_search = k * factor, clamped to [40, 1000]
+    @Value("${ai.search.hnsw.ef-search-factor:10}")
+    private int hnswEfSearchFactor;
+
+    // Hybrid search: candidates per leg, and the RRF constant (60 is the usual choice)
+    @Value("${ai.search.hybrid.candidates:50}")
+    private int hybridCandidates;
+
+    @Value("${ai.search.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    // BINARY mode: Hamming-distance candidates per requested row, re-ranked by exact cosine
+    @Value("${ai.search.binary.rerank-factor:10}")
+    private int binaryRerankFactor;
+
+    // Row counts drive the AUTO choice; a few minutes of staleness doesn't matter.
+    // Counted on cacheLoadExecutor, so concurrent misses share one count(*) and the query
+    // never runs under Caffeine's compute lock (where it would pin a virtual thread).
+    private final AsyncLoadingCache<Long, Long> studentRowCounts;
+
+    // pgvector >= 0.8 (hnsw.iterative_scan); read once from pg_extension
+    private volatile Boolean iterativeScan;
+
+    public ReportEmbeddingRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                         EmbeddingStorage storage,
+                                         @Qualifier("cacheLoadExecutor") TaskExecutor cacheLoadExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storage = storage;
+        this.studentRowCounts = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .executor(cacheLoadExecutor)
+                .buildAsync(studentId -> jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM report_embedding WHERE student_id = ?", Long.class, studentId));
+    }
+
+    @Override
+    @Transactional
+    public int upsertEmbeddings(List<NewEmbedding> rows) {
+        if (rows.isEmpty()) return 0;
+
+        int[][] counts = jdbcTemplate.batchUpdate("""
+                INSERT INTO report_embedding (student_id, report_id, subject, content, content_hash, embedding,
+                                              embedding_model)
+                VALUES (?, ?, ?, ?, ?, %1$s, ?)
+                ON CONFLICT (report_id) DO UPDATE SET
+                    student_id      = EXCLUDED.student_id,
+                    subject         = EXCLUDED.subject,
+                    content         = EXCLUDED.content,
+                    content_hash    = EXCLUDED.content_hash,
+                    embedding       = EXCLUDED.embedding,
+                    embedding_model = EXCLUDED.embedding_model
+                """.formatted(storage.param()), rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.studentId());
+            ps.setLong(2, row.reportId());
+            ps.setString(3, row.subject());
+            ps.setString(4, row.content());
+            ps.setString(5, row.contentHash());
+            ps.setObject(6, PgVector.of(storage.fit(row.embedding())));
+            ps.setString(7, storage.model());
+        });
+
+        int written = 0;
+        for (int[] chunk : counts) {
+            written += chunk.length;
+        }
+        return written;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, String> findContentHashes(Collection<Long> reportIds) {
+        Map<Long, String> hashes = new HashMap<>();
+        if (reportIds.isEmpty()) return hashes;
+
+        jdbcTemplate.query("""
+                SELECT report_id, content_hash
+                FROM report_embedding
+                WHERE report_id = ANY (?)
+                """, rs -> {
+            hashes.put(rs.getLong("report_id"), rs.getString("content_hash"));
+        }, (Object) reportIds.toArray(Long[]::new));
+        return hashes;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> searchTopKWithScore(Long studentId, float[] queryVector, int k, String subjectFilter) {
+        return searchTopKWithScore(studentId, queryVector, k, subjectFilter, VectorSearchMode.AUTO);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> searchTopKWithScore(Long studentId, float[] queryVector, int k,
+                                              String subjectFilter, VectorSearchMode mode) {
+        VectorSearchMode effective = mode == VectorSearchMode.AUTO ? chooseMode(studentId) : mode;
+        boolean bySubject = subjectFilter != null && !subjectFilter.isBlank();
+
+        if (effective == VectorSearchMode.BINARY) {
+            return binaryRerankTopK(studentId, queryVector, k, bySubject ? subjectFilter : null);
+        }
+        if (effective == VectorSearchMode.HNSW) {
+            configureHnsw(k);
+        }
+
+        // EXACT: materialize the student's rows first so the planner can't use the ANN index.
+        // HNSW: let the index drive the ORDER BY; relaxed_order results are re-sorted outside.
+        // %1$s is the query vector parameter, cast to the column's type (vector or halfvec).
+        String sql = (effective == VectorSearchMode.EXACT
+                ? """
+                WITH candidates AS MATERIALIZED (
+                    SELECT id, student_id, report_id, subject, content, created_at,
+                           embedding <=> %1$s AS distance
+                    FROM report_embedding
+                    WHERE student_id = ?
+                    """ + (bySubject ? "  AND subject ILIKE ?\n" : "") + """
+                )
+                SELECT id, student_id, report_id, subject, content, created_at, 1 - distance AS score
+                FROM candidates
+                ORDER BY distance
+                LIMIT ?
+                """
+                : """
+                WITH nearest AS MATERIALIZED (
+                    SELECT id, student_id, report_id, subject, content, created_at,
+                           embedding <=> %1$s AS distance
+                    FROM report_embedding
+                    WHERE student_id = ?
+                    """ + (bySubject ? "  AND subject ILIKE ?\n" : "") + """
+                    ORDER BY distance
+                    LIMIT ?
+                )
+                SELECT id, student_id, report_id, subject, content, created_at, 1 - distance AS score
+                FROM nearest
+                ORDER BY distance
+                """).formatted(storage.param());
+
+        List<Object> args = new ArrayList<>(4);
+        args.add(PgVector.of(storage.fit(queryVector)));
+        args.add(studentId);
+        if (bySubject) args.add("%" + subjectFilter + "%");
+        args.add(k);
+
+        return jdbcTemplate.query(sql, SEARCH_ROW, args.toArray());
+    }
+
+    /**
+     * Stage 1 walks idx_embedding_bq_hnsw (192-byte bit strings instead of full vectors) for
+     * the candidates; stage 2 computes exact cosine on just those rows.
+     */
+    private List<Object[]> binaryRerankTopK(Long studentId, float[] queryVector, int k, String subjectFilter) {
+        // long math: k * factor must not wrap for a large k or factor
+        int candidates = (int) Math.min(Math.max(k, (long) k * binaryRerankFactor), MAX_CANDIDATES);
+        configureHnsw(candidates);
+
+        String sql = ("""
+                WITH candidates AS MATERIALIZED (
+                    SELECT id
+                    FROM report_embedding
+                    WHERE student_id = ?
+                    """ + (subjectFilter != null ? "  AND subject ILIKE ?\n" : "") + """
+                    ORDER BY embedding_bq <~> binary_quantize(%1$s)
+                    LIMIT ?
+                ),
+                reranked AS (
+                    SELECT e.id, e.student_id, e.report_id, e.subject, e.content, e.created_at,
+                           e.embedding <=> %1$s AS distance
+                    FROM candidates c
+                    JOIN report_embedding e ON e.id = c.id
+                )
+                SELECT id, student_id, report_id, subject, content, created_at, 1 - distance AS score
+                FROM reranked
+                ORDER BY distance
+                LIMIT ?
+                """).formatted(storage.param());
+
+        PgVector vector = PgVector.of(storage.fit(queryVector));
+        List<Object> args = new ArrayList<>(6);
+        args.add(studentId);
+        if (subjectFilter != null) args.add("%" + subjectFilter + "%");
+        args.add(vector);
+        args.add(candidates);
+        args.add(vector);
+        args.add(k);
+
+        return jdbcTemplate.query(sql, SEARCH_ROW, args.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> hybridSearchTopK(Long studentId, String queryText, float[] queryVector, int k,
+                                           String subjectFilter) {
+        VectorSearchMode vectorMode = chooseMode(studentId);
+        boolean bySubject = subjectFilter != null && !subjectFilter.isBlank();
+        String subjectClause = bySubject ? "  AND subject ILIKE ?\n" : "";
+        int candidates = Math.max(k, hybridCandidates);
+
+        if (vectorMode == VectorSearchMode.HNSW) {
+            configureHnsw(candidates);
+        }
+
+        // Vector leg: same EXACT/HNSW shapes as searchTopKWithScore, ranked by distance
+        String vectorLeg = vectorMode == VectorSearchMode.EXACT
+                ? """
+                vec_candidates AS MATERIALIZED (
+                    SELECT id, embedding <=> %1$s AS distance
+                    FROM report_embedding
+                    WHERE student_id = ?
+                    """ + subjectClause + """
+                ),
+                vec AS (
+                    SELECT id, row_number() OVER (ORDER BY distance, id) AS rnk
+                    FROM vec_candidates
+                    ORDER BY distance, id
+                    LIMIT ?
+                ),
+                """
+                : """
+                vec_nearest AS MATERIALIZED (
+                    SELECT id, embedding <=> %1$s AS distance
+                    FROM report_embedding
+                    WHERE student_id = ?
+                    """ + subjectClause + """
+                    ORDER BY distance
+                    LIMIT ?
+                ),
+                vec AS (
+                    SELECT id, row_number() OVER (ORDER BY distance, id) AS rnk
+                    FROM vec_nearest
+                ),
+                """;
+
+        // Lexical leg, then RRF over both rankings
+        String sql = ("WITH " + vectorLeg + lexicalLeg(subjectClause) + """
+                fused AS (
+                    SELECT coalesce(vec.id, lex.id) AS id,
+                           coalesce(1.0 / (? + vec.rnk), 0) + coalesce(1.0 / (? + lex.rnk), 0) AS rrf,
+                           lex.rnk AS lexical_rank
+                    FROM vec
+                    FULL OUTER JOIN lex ON lex.id = vec.id
+                )
+                SELECT e.id, e.student_id, e.report_id, e.subject, e.content, e.created_at,
+                       1 - (e.embedding <=> %1$s) AS score, f.rrf, f.lexical_rank
+                FROM fused f
+                JOIN report_embedding e ON e.id = f.id
+                ORDER BY f.rrf DESC, e.id
+                LIMIT ?
+                """).formatted(storage.param());
+
+        PgVector vector = PgVector.of(storage.fit(queryVector));
+        List<Object> args = new ArrayList<>(12);
+        args.add(vector);
+        args.add(studentId);
+        if (bySubject) args.add("%" + subjectFilter + "%");
+        args.add(candidates);
+        args.add(queryText);
+        args.add(studentId);
+        if (bySubject) args.add("%" + subjectFilter + "%");
+        args.add(candidates);
+        args.add(rrfK);
+        args.add(rrfK);
+        args.add(vector);
+        args.add(k);
+
+        return jdbcTemplate.query(sql, HYBRID_ROW, args.toArray());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> lexicalSearchTopK(Long studentId, String queryText, float[] queryVector, int k,
+                                            String subjectFilter) {
+        boolean bySubject = subjectFilter != null && !subjectFilter.isBlank();
+        String sql = ("WITH " + lexicalLeg(bySubject ? "  AND subject ILIKE ?\n" : "") + """
+                ranked AS (
+                    SELECT e.id, e.student_id, e.report_id, e.subject, e.content, e.created_at,
+                           1 - (e.embedding <=> %1$s) AS score, lex.rnk
+                    FROM lex
+                    JOIN report_embedding e ON e.id = lex.id
+                )
+                SELECT id, student_id, report_id, subject, content, created_at, score
+                FROM ranked
+                ORDER BY rnk
+                """).formatted(storage.param());
+
+        List<Object> args = new ArrayList<>(5);
+        args.add(queryText);
+        args.add(studentId);
+        if (bySubject) args.add("%" + subjectFilter + "%");
+        args.add(k);
+        args.add(PgVector.of(storage.fit(queryVector)));
+
+        return jdbcTemplate.query(sql, SEARCH_ROW, args.toArray());
+    }
+
+    /**
+     * CTEs lex_query and lex (id, rnk): full-text candidates via idx_embedding_search_tsv.
+     * Parameters: query text, student id, [subject pattern], limit.
+     *
+     * The query is the OR of the text's lexemes: queries are whole goal prompts, and an AND of
+     * every term would almost never match. ts_rank_cd ranks rows matching more terms higher.
+     * The lexemes are already stemmed by the 'english' parser, so 'simple' keeps them as they are.
+     */
+    private static String lexicalLeg(String subjectClause) {
+        return """
+                lex_query AS (
+                    SELECT to_tsquery('simple', string_agg(quote_literal(lexeme), ' | ')) AS query
+                    FROM unnest(to_tsvector('english', ?))
+                ),
+                lex AS (
+                    SELECT id, row_number() OVER (ORDER BY ts_rank_cd(search_tsv, query) DESC, id) AS rnk
+                    FROM report_embedding, lex_query
+                    WHERE student_id = ?
+                      AND search_tsv @@ query
+                    """ + subjectClause + """
+                    ORDER BY rnk
+                    LIMIT ?
+                ),
+                """;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> exactTopKReportIdsAs(Long studentId, float[] queryVector, int k, EmbeddingStorageFormat format) {
+        // Both sides are converted on the fly (first n dims, re-normalized, then cast), so this
+        // is a sequential scan; it measures what the format loses, not what the index loses.
+        String converted = "(l2_normalize(subvector(%s::vector, 1, " + format.dimensions() + ")))::" + format.sqlType();
+        return jdbcTemplate.queryForList("""
+                SELECT report_id
+                FROM report_embedding
+                WHERE student_id = ?
+                ORDER BY %s <=> %s, id
+                LIMIT ?
+                """.formatted(converted.formatted("embedding"), converted.formatted("?")),
+                Long.class, studentId, PgVector.of(storage.fit(queryVector)), k);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SampledEmbedding> sampleEmbeddings(int n) {
+        return jdbcTemplate.query("""
+                SELECT student_id, report_id, embedding::text AS embedding
+                FROM report_embedding
+                ORDER BY random()
+                LIMIT ?
+                """, (rs, rowNum) -> new SampledEmbedding(
+                rs.getLong("student_id"),
+                rs.getLong("report_id"),
+                PgVector.parse(rs.getString("embedding"))
+        ), n);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StoredEmbedding> findAllForStudent(Long studentId) {
+        return jdbcTemplate.query("""
+                SELECT id, student_id, report_id, subject, content, created_at, embedding::text AS embedding
+                FROM report_embedding
+                WHERE student_id = ?
+                ORDER BY id
+                """, (rs, rowNum) -> new StoredEmbedding(
+                rs.getLong("id"),
+                rs.getLong("student_id"),
+                rs.getLong("report_id"),
+                rs.getString("subject"),
+                rs.getString("content"),
+                rs.getObject("created_at", OffsetDateTime.class),
+                PgVector.parse(rs.getString("embedding"))
+        ), studentId);
+    }
+
+    /**
+     * Transaction-local: widen the candidate list and keep scanning until k rows pass the filter.
+     * Before pgvector 0.8 there is no iterative scan (and setting it fails), so the candidate list
+     * is widened to the maximum instead; a student's rows can still come back short of k.
+     */
+    private void configureHnsw(int k) {
+        boolean iterative = iterativeScan();
+        int efSearch = iterative
+                ? (int) Math.min(Math.max((long) k * hnswEfSearchFactor, 40), MAX_CANDIDATES)
+                : MAX_CANDIDATES;
+        jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)",
+                String.class, String.valueOf(efSearch));
+        if (iterative) {
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.iterative_scan', 'relaxed_order', true)",
+                    String.class);
+        }
+    }
+
+    /** Read the pgvector version at startup rather than on the first search. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPgvectorVersion() {
+        iterativeScan();
+    }
+
+    private boolean iterativeScan() {
+        Boolean supported = iterativeScan;
+        if (supported == null) {
+            String version = jdbcTemplate.queryForObject(
+                    "SELECT extversion FROM pg_extension WHERE extname = 'vector'", String.class);
+            supported = supportsIterativeScan(version);
+            if (!supported) {
+                log.warn("pgvector {} has no hnsw.iterative_scan (0.8+): AUTO and hybrid search scan exactly", version);
+            }
+            iterativeScan = supported;
+        }
+        return supported;
+    }
+
+    /** True for pgvector 0.8.0 and later. */
+    static boolean supportsIterativeScan(String extversion) {
+        if (extversion == null) return false;
+        String[] parts = extversion.trim().split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return major > 0 || minor >= 8;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Small corpora are cheaper (and exact) to scan directly than to walk the ANN graph for.
+     * Without iterative scan a filtered HNSW walk can return too few rows, so everyone is scanned.
+     */
+    private VectorSearchMode chooseMode(Long studentId) {
+        if (!iterativeScan()) return VectorSearchMode.EXACT;
+
+        long rows;
+        try {
+            rows = studentRowCounts.get(studentId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+        return rows <= exactMaxRows ? VectorSearchMode.EXACT : VectorSearchMode.HNSW;
+    }
+
+    private static final RowMapper<Object[]> SEARCH_ROW = (rs, rowNum) -> new Object[] {
+            rs.getLong("id"),
+            rs.getLong("student_id"),
+            rs.getLong("report_id"),
+            rs.getString("subject"),
+            rs.getString("content"),
+            rs.getObject("created_at", OffsetDateTime.class),
+            rs.getDouble("score")
+    };
+
+    private static final RowMapper<Object[]> HYBRID_ROW = (rs, rowNum) -> new Object[] {
+            rs.getLong("id"),
+            rs.getLong("student_id"),
+            rs.getLong("report_id"),
+            rs.getString("subject"),
+            rs.getString("content"),
+            rs.getObject("created_at", OffsetDateTime.class),
+            rs.getDouble("score"),
+            rs.getDouble("rrf"),
+            rs.getObject("lexical_rank", Long.class)
+    };
+}
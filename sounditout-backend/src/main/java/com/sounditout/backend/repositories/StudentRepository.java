@@ -1,19 +1,36 @@
 package com.sounditout.backend.repositories;
 
 import com.sounditout.backend.domainLayer.entity.Student;
+import com.sounditout.backend.weblayer.dtos.StudentResponse;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, StudentRepositoryCustom {
+
+    // Constructor expression for read endpoints: one query, no managed entities
+    String RESPONSE = "new com.sounditout.backend.weblayer.dtos.StudentResponse("
+            + "s.id, s.fullName, s.grade, s.studentGroup, s.age, s.createdAt, s.updatedAt)";
+
     Optional<Student> findByUserId(Long userId);
 
     List<Student> findByFullNameContainingIgnoreCase(String fullName);
 
     Long id(Long id);
 
-}
+    /** Keyset page for the admin list: ids after the cursor, in id order. */
+    List<Student> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 
+    @Query("SELECT " + RESPONSE + " FROM Student s WHERE s.id = :id")
+    Optional<StudentResponse> findResponseById(@Param("id") Long id);
+
+    /** Same page as findByIdGreaterThanOrderByIdAsc, projected straight into the response DTO. */
+    @Query("SELECT " + RESPONSE + " FROM Student s WHERE s.id > :afterId ORDER BY s.id")
+    List<StudentResponse> findResponsePage(@Param("afterId") Long afterId, Limit limit);
+}
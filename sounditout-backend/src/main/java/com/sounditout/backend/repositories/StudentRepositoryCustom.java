@@ -0,0 +1,24 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.weblayer.dtos.StudentResponse;
+import com.sounditout.backend.weblayer.dtos.StudentSuggestion;
+
+import java.util.List;
+
+/**
+ * JDBC-backed name search for {@link StudentRepository}, using the pg_trgm operators
+ * and indexes from V11 (which JPQL can't express).
+ *
+ * Queries of at least {@link #MIN_TRIGRAM_LENGTH} characters match as a substring or by
+ * word similarity and are ranked by word_similarity; shorter ones are prefix matches.
+ */
+public interface StudentRepositoryCustom {
+
+    int MIN_TRIGRAM_LENGTH = 3;
+
+    /** Ranked matches as full list rows, at most limit of them. */
+    List<StudentResponse> searchByName(String query, int limit);
+
+    /** Ranked matches for the search box, at most limit of them. */
+    List<StudentSuggestion> autocomplete(String query, int limit);
+}
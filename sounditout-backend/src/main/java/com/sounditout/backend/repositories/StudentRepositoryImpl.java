@@ -0,0 +1,90 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.domainLayer.enums.GradeRange;
+import com.sounditout.backend.domainLayer.enums.StudentGroup;
+import com.sounditout.backend.weblayer.dtos.StudentResponse;
+import com.sounditout.backend.weblayer.dtos.StudentSuggestion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/** Picked up by Spring Data as the implementation of {@link StudentRepositoryCustom}. */
+@RequiredArgsConstructor
+public class StudentRepositoryImpl implements StudentRepositoryCustom {
+
+    private static final String COLUMNS =
+            "id, full_name, grade, student_group, age, created_at, updated_at";
+
+    // Both predicates are served by idx_student_full_name_trgm (GIN, gin_trgm_ops)
+    private static final String TRIGRAM_SQL = """
+            SELECT %s, word_similarity(?, full_name) AS score
+            FROM student
+            WHERE full_name ILIKE ? OR ? <%% full_name
+            ORDER BY score DESC, full_name, id
+            LIMIT ?
+            """.formatted(COLUMNS);
+
+    // Trigrams need 3 characters; shorter input is a prefix match on idx_student_full_name_prefix
+    private static final String PREFIX_SQL = """
+            SELECT %s, 1.0 AS score
+            FROM student
+            WHERE lower(full_name) LIKE lower(?)
+            ORDER BY full_name, id
+            LIMIT ?
+            """.formatted(COLUMNS);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentResponse> searchByName(String query, int limit) {
+        return match(query, limit, (rs, i) -> new StudentResponse(
+                rs.getLong("id"),
+                rs.getString("full_name"),
+                GradeRange.valueOf(rs.getString("grade")),
+                studentGroup(rs),
+                rs.getInt("age"),
+                rs.getObject("created_at", LocalDate.class),
+                rs.getObject("updated_at", LocalDate.class)
+        ));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentSuggestion> autocomplete(String query, int limit) {
+        return match(query, limit, (rs, i) -> new StudentSuggestion(
+                rs.getLong("id"),
+                rs.getString("full_name"),
+                GradeRange.valueOf(rs.getString("grade")),
+                studentGroup(rs),
+                rs.getDouble("score")
+        ));
+    }
+
+    private <T> List<T> match(String query, int limit, RowMapper<T> mapper) {
+        String q = query == null ? "" : query.trim();
+        if (q.isEmpty()) return List.of();
+
+        String pattern = escapeLike(q);
+        if (q.codePointCount(0, q.length()) < MIN_TRIGRAM_LENGTH) {
+            return jdbcTemplate.query(PREFIX_SQL, mapper, pattern + "%", limit);
+        }
+        return jdbcTemplate.query(TRIGRAM_SQL, mapper, q, "%" + pattern + "%", q, limit);
+    }
+
+    /** The user's text is matched literally: escape LIKE wildcards (backslash is the default escape). */
+    static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static StudentGroup studentGroup(ResultSet rs) throws SQLException {
+        String group = rs.getString("student_group");
+        return group == null ? null : StudentGroup.valueOf(group);
+    }
+}
@@ -4,5 +4,13 @@ import com.sounditout.backend.domainLayer.entity.StudyPlan;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Optional;
+
 @Repository
-public interface StudyPlanRepository extends JpaRepository<StudyPlan, Long> { }
+public interface StudyPlanRepository extends JpaRepository<StudyPlan, Long> {
+
+    /** Latest plan for this student, week and goal hash (served by idx_study_plan_memo). */
+    Optional<StudyPlan> findFirstByStudentIdAndWeekStartAndGoalHashOrderByIdDesc(
+            Long studentId, LocalDate weekStart, String goalHash);
+}
@@ -1,8 +1,11 @@
 package com.sounditout.backend.repositories;
 
 import com.sounditout.backend.domainLayer.entity.User;
+import com.sounditout.backend.domainLayer.enums.Role;
 import lombok.NonNull;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -14,6 +17,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    /** Role only, for the per-request user check (no need to load the whole user). */
+    @Query("SELECT u.role FROM User u WHERE u.id = :id")
+    Optional<Role> findRoleById(@Param("id") Long id);
+
     // Optional: explicit delete method (JpaRepository already provides deleteById)
     void deleteById(@NonNull Long id);
 
@@ -0,0 +1,16 @@
+package com.sounditout.backend.repositories;
+
+/** How {@link ReportEmbeddingRepositoryCustom#searchTopKWithScore} finds nearest neighbors. */
+public enum VectorSearchMode {
+    /** EXACT for students with few rows, HNSW otherwise (see ai.search.exact-max-rows). */
+    AUTO,
+    /** Scan only the student's rows and sort by exact distance. Full recall, no index. */
+    EXACT,
+    /** HNSW index with iterative scan, so the student filter still yields k rows. */
+    HNSW,
+    /**
+     * Two stages: k * ai.search.binary.rerank-factor candidates by Hamming distance on the
+     * binary-quantized copy (embedding_bq, HNSW), then exact cosine re-rank of those rows.
+     */
+    BINARY
+}
@@ -0,0 +1,52 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.domainLayer.entity.YouTubeSearchCacheEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface YouTubeSearchCacheRepository extends JpaRepository<YouTubeSearchCacheEntry, String> {
+
+    Optional<YouTubeSearchCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, OffsetDateTime now);
+
+    /** Most requested live entries, for warming L1 on startup. */
+    List<YouTubeSearchCacheEntry> findByExpiresAtAfterOrderByHitsDesc(OffsetDateTime now, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE YouTubeSearchCacheEntry e SET e.hits = e.hits + 1 WHERE e.cacheKey = :cacheKey")
+    int recordHit(@Param("cacheKey") String cacheKey);
+
+    /** Insert or replace the videos of a key, keeping (and bumping) its hit count. */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO yt_search_cache (cache_key, topic, max_results, videos, fetched_at, expires_at, hits)
+        VALUES (:cacheKey, :topic, :maxResults, CAST(:videos AS jsonb), :fetchedAt, :expiresAt, 1)
+        ON CONFLICT (cache_key) DO UPDATE SET
+            videos     = EXCLUDED.videos,
+            fetched_at = EXCLUDED.fetched_at,
+            expires_at = EXCLUDED.expires_at,
+            hits       = yt_search_cache.hits + 1
+        """, nativeQuery = true)
+    int upsert(@Param("cacheKey") String cacheKey,
+               @Param("topic") String topic,
+               @Param("maxResults") int maxResults,
+               @Param("videos") String videosJson,
+               @Param("fetchedAt") OffsetDateTime fetchedAt,
+               @Param("expiresAt") OffsetDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM YouTubeSearchCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") OffsetDateTime now);
+}
@@ -1,7 +1,7 @@
 package com.sounditout.backend.security;
 
 import com.sounditout.backend.domainLayer.entity.User;
-import lombok.RequiredArgsConstructor;
+import com.sounditout.backend.domainLayer.enums.Role;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,10 +9,32 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.List;
 
-@RequiredArgsConstructor
 public class CustomUserDetails implements UserDetails {
 
     private final User user;
+    private final Long studentId;   // null for admins / users without a student profile
+
+    public CustomUserDetails(User user) {
+        this(user, user.getStudent() != null ? user.getStudent().getId() : null);
+    }
+
+    public CustomUserDetails(User user, Long studentId) {
+        this.user = user;
+        this.studentId = studentId;
+    }
+
+    /**
+     * Principal rebuilt from verified JWT claims, without a DB read.
+     * The wrapped User only carries id, email and role (no password, no student relation).
+     */
+    public static CustomUserDetails fromClaims(Long userId, String email, Role role, Long studentId) {
+        User user = User.builder()
+                .id(userId)
+                .email(email)
+                .role(role)
+                .build();
+        return new CustomUserDetails(user, studentId);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -53,6 +75,11 @@ public class CustomUserDetails implements UserDetails {
         return user.getId();
     }
 
+    /** Student profile id, or null when the user has none (e.g. admins, or tokens issued before it was a claim). */
+    public Long getStudentId() {
+        return studentId;
+    }
+
     /** Optional: expose the role name for quick checks/logging (e.g., "STUDENT" / "ADMIN"). */
     public String getRoleName() {
         return user.getRole().name();
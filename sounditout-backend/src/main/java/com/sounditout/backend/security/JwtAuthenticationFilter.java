@@ -1,6 +1,8 @@
 package com.sounditout.backend.security;
 
+import com.sounditout.backend.domainLayer.enums.Role;
 import com.sounditout.backend.services.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,7 +21,7 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final CustomUserDetailsService userDetailsService; // fixed name
 
     @Override
@@ -40,26 +42,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             // If someone already authenticated earlier in the chain, skip
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                String username = jwtUtil.extractUsername(jwt);
-                if (username != null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    if (jwtUtil.isTokenValid(jwt, userDetails)) {
-                        UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(
-                                        userDetails, null, userDetails.getAuthorities());
-
-                        authentication.setDetails(
-                                new WebAuthenticationDetailsSource().buildDetails(request));
-
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                        // Optional convenience for controllers (non-breaking):
-                        // if your CustomUserDetails is used, you can grab the ID later via request attribute
-                        if (userDetails instanceof CustomUserDetails cud) {
-                            request.setAttribute("authUserId", cud.getId());
-                            request.setAttribute("authRole", cud.getRoleName());
-                        }
+                // Verified once per token (then cached until exp); throws if invalid or revoked
+                Claims claims = verifiedTokenCache.verify(jwt);
+                UserDetails userDetails = principalFrom(claims);
+
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, userDetails.getAuthorities());
+
+                    authentication.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                    // Optional convenience for controllers (non-breaking):
+                    // if your CustomUserDetails is used, you can grab the ID later via request attribute
+                    if (userDetails instanceof CustomUserDetails cud) {
+                        request.setAttribute("authUserId", cud.getId());
+                        request.setAttribute("authRole", cud.getRoleName());
                     }
                 }
             }
@@ -70,4 +71,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Principal from verified claims. Tokens issued before the uid/role claims existed
+     * fall back to loading the user by email. Returns null if the user no longer exists.
+     */
+    private UserDetails principalFrom(Claims claims) {
+        Object uid = claims.get(JwtUtil.CLAIM_USER_ID);
+        String role = claims.get(JwtUtil.CLAIM_ROLE, String.class);
+        if (!(uid instanceof Number userId) || role == null) {
+            return claims.getSubject() == null ? null : userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        Object sid = claims.get(JwtUtil.CLAIM_STUDENT_ID);
+        CustomUserDetails fromToken = CustomUserDetails.fromClaims(
+                userId.longValue(),
+                claims.getSubject(),
+                Role.valueOf(role),
+                sid instanceof Number studentId ? studentId.longValue() : null);
+        return userDetailsService.checkCurrent(fromToken);
+    }
 }
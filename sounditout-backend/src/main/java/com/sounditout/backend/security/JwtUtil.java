@@ -1,6 +1,7 @@
 package com.sounditout.backend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -17,8 +18,14 @@ import java.util.Date;
 @Component
 public class JwtUtil {
 
+    // Claim names; "sub" stays the email
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_STUDENT_ID = "sid";
+
     private final SecretKey key;
-    
+    private final JwtParser parser;   // immutable and thread-safe, so built once
+
     @Value("${jwt.expiration-time}")
     private long EXPIRATION_TIME;
 
@@ -26,6 +33,7 @@ public class JwtUtil {
     public JwtUtil(@Value("${jwt.secret}") String secret) {
         byte[] decodedSecret = Base64.getDecoder().decode(secret);
         this.key = Keys.hmacShaKeyFor(decodedSecret);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -39,9 +47,19 @@ public class JwtUtil {
         Date issuedAt = Date.from(now);
         Date expiration = Date.from(now.plusMillis(EXPIRATION_TIME));
 
-        return Jwts.builder()
+        var builder = Jwts.builder()
                 .setSubject(userDetails.getUsername())
-                .claim("role", role)
+                .claim(CLAIM_ROLE, role);
+
+        // Enough to build the principal without a DB read (see JwtAuthenticationFilter)
+        if (userDetails instanceof CustomUserDetails cud) {
+            builder.claim(CLAIM_USER_ID, cud.getId());
+            if (cud.getStudentId() != null) {
+                builder.claim(CLAIM_STUDENT_ID, cud.getStudentId());
+            }
+        }
+
+        return builder
                 .setIssuedAt(issuedAt)
                 .setExpiration(expiration)
                 .signWith(key, SignatureAlgorithm.HS256)
@@ -52,15 +70,11 @@ public class JwtUtil {
         return parseClaims(token).getSubject(); // Pull email from token
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        return extractUsername(token).equals(userDetails.getUsername()) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return parseClaims(token).getExpiration().before(new Date());
-    }
-
-    private Claims parseClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody(); // Decode token
+    /**
+     * Verify the signature and expiry once and return the claims.
+     * Throws a {@link io.jsonwebtoken.JwtException} for tampered, malformed or expired tokens.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody(); // Decode token
     }
 }
@@ -0,0 +1,133 @@
+package com.sounditout.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Verified JWT claims keyed by a SHA-256 digest of the token (raw tokens are never kept).
+ *
+ * The frontend sends the same bearer token on every call, so after the first request the
+ * HS256 check is skipped until the token's own {@code exp}, when the entry expires with it.
+ * {@link #revoke(String)} puts a token on a denylist (also until its exp), e.g. on logout.
+ * Both live in this instance's memory only.
+ * Hit rate: cache.gets{cache=jwtVerified} in /actuator/metrics.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+    private final Cache<String, Claims> verified;
+    private final Cache<String, Date> revoked;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.jwt.verified-cache.max-size:10000}") long maxSize) {
+        this.jwtUtil = jwtUtil;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry<String, Claims>() {
+                    @Override
+                    Date expiration(Claims claims) {
+                        return claims.getExpiration();
+                    }
+                })
+                .recordStats()
+                .build();
+        // Expiry only, no size bound: evicting an entry early would quietly un-revoke a live token.
+        // Entries leave when the token expires, so the set is bounded by logouts per token lifetime.
+        this.revoked = Caffeine.newBuilder()
+                .expireAfter(new UntilTokenExpiry<String, Date>() {
+                    @Override
+                    Date expiration(Date exp) {
+                        return exp;
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwtVerified");
+    }
+
+    /**
+     * Claims of a valid token, from cache when it was verified before.
+     * Throws a {@link JwtException} for invalid, expired or revoked tokens.
+     */
+    public Claims verify(String token) {
+        String digest = digest(token);
+        if (revoked.getIfPresent(digest) != null) {
+            throw new JwtException("Token has been revoked");
+        }
+
+        Claims claims = verified.getIfPresent(digest);
+        if (claims != null && !isExpired(claims)) {
+            return claims;
+        }
+
+        claims = jwtUtil.parseClaims(token);
+        if (claims.getExpiration() != null) {   // tokens without exp aren't cached
+            verified.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /** Reject this token from now on (until it would have expired anyway). */
+    public void revoke(String token) {
+        Claims claims;
+        try {
+            claims = verify(token);
+        } catch (JwtException e) {
+            return; // already unusable
+        }
+        String digest = digest(token);
+        verified.invalidate(digest);
+        if (claims.getExpiration() != null) {
+            revoked.put(digest, claims.getExpiration());
+        }
+    }
+
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration().getTime() <= System.currentTimeMillis();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Entries live until the token's exp; reads and updates don't extend that. */
+    private abstract static class UntilTokenExpiry<K, V> implements Expiry<K, V> {
+
+        abstract Date expiration(V value);
+
+        @Override
+        public long expireAfterCreate(K key, V value, long currentTime) {
+            long millis = expiration(value).getTime() - System.currentTimeMillis();
+            return Math.max(millis, 0) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
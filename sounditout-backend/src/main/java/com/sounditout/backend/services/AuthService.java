@@ -7,6 +7,7 @@ import com.sounditout.backend.repositories.StudentRepository;
 import com.sounditout.backend.repositories.UserRepository;
 import com.sounditout.backend.security.CustomUserDetails;
 import com.sounditout.backend.security.JwtUtil;
+import com.sounditout.backend.security.VerifiedTokenCache;
 import com.sounditout.backend.weblayer.dtos.AuthResponse;
 import com.sounditout.backend.weblayer.dtos.LoginRequest;
 import com.sounditout.backend.weblayer.dtos.RegisterRequest;
@@ -28,6 +29,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final StudentRepository studentRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Transactional
     public AuthResponse register(@Valid RegisterRequest request) {
@@ -66,7 +68,7 @@ public class AuthService {
         try {
             // existing registration logic...
             userRepository.save(user);
-            return new AuthResponse(jwtUtil.generateToken(new CustomUserDetails(user)));
+            return new AuthResponse(jwtUtil.generateToken(new CustomUserDetails(user, student.getId())));
 
         } catch (Exception e) {
             e.printStackTrace(); // 🧠 this is what we need now
@@ -85,4 +87,9 @@ public class AuthService {
 
         return new AuthResponse(jwtUtil.generateToken(new CustomUserDetails(user)));
     }
+
+    /** Revoke a token on this instance; it is rejected until it would have expired. */
+    public void logout(String token) {
+        verifiedTokenCache.revoke(token);
+    }
 }
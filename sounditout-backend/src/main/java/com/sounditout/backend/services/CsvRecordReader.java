@@ -0,0 +1,90 @@
+package com.sounditout.backend.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma-separated, fields optionally in double quotes,
+ * {@code ""} for a quote inside a quoted field, and line breaks allowed inside quotes
+ * (report notes often have them). Reads one record at a time, never the whole input.
+ */
+class CsvRecordReader {
+
+    private final Reader in;
+    private int peeked = -2;           // -2 = nothing peeked
+    private long line = 1;             // physical line the next record starts on
+    private long recordLine;
+
+    CsvRecordReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Line number (1-based) where the last record returned by {@link #next()} started. */
+    long recordLine() {
+        return recordLine;
+    }
+
+    /** The next record's fields, or null at end of input. Blank lines are skipped. */
+    List<String> next() throws IOException {
+        int c;
+        // Skip blank lines between records
+        while ((c = read()) == '\r' || c == '\n') {
+            if (c == '\r' && peek() == '\n') read();
+            line++;
+        }
+        if (c == -1) return null;
+        if (recordLine == 0 && c == '\uFEFF') {   // UTF-8 BOM from spreadsheet exports
+            c = read();
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') read();
+                if (c != -1) line++;
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) peeked = in.read();
+        return peeked;
+    }
+}
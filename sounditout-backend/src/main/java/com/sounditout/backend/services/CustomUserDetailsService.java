@@ -1,19 +1,47 @@
 package com.sounditout.backend.services;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sounditout.backend.domainLayer.enums.Role;
 import com.sounditout.backend.repositories.UserRepository;
 import com.sounditout.backend.security.CustomUserDetails;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    // userId -> current role (empty = user deleted); covers what a still-valid token can't know.
+    // Async: the lookup runs on cacheLoadExecutor, concurrent checks share it, and evict()
+    // discards a lookup still in flight instead of letting it re-cache the old role.
+    private final AsyncLoadingCache<Long, Optional<Role>> currentRoles;
+    private final boolean userCheckEnabled;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Qualifier("cacheLoadExecutor") TaskExecutor cacheLoadExecutor,
+                                    @Value("${security.jwt.user-check-ttl:60s}") Duration userCheckTtl) {
+        this.userRepository = userRepository;
+        this.userCheckEnabled = !userCheckTtl.isZero() && !userCheckTtl.isNegative();
+        this.currentRoles = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(userCheckEnabled ? userCheckTtl : Duration.ofSeconds(1))
+                .executor(cacheLoadExecutor)
+                .buildAsync(userRepository::findRoleById);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException{
         return userRepository.findByEmail(email)
@@ -21,4 +49,40 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .orElseThrow(() -> new  UsernameNotFoundException("User Not found"));
     }
 
+    /**
+     * Check a principal built from token claims against the users table, at most once per
+     * {@code security.jwt.user-check-ttl} per user. Returns null if the user was deleted,
+     * and a principal with the current role if it changed. A TTL of 0 disables the check.
+     */
+    public CustomUserDetails checkCurrent(CustomUserDetails fromToken) {
+        if (!userCheckEnabled) return fromToken;
+
+        Long userId = fromToken.getId();
+        Optional<Role> role;
+        try {
+            role = currentRoles.get(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+
+        if (role.isEmpty()) return null;
+        if (role.get() == fromToken.getUser().getRole()) return fromToken;
+        return CustomUserDetails.fromClaims(userId, fromToken.getUsername(), role.get(), fromToken.getStudentId());
+    }
+
+    /** Forget the cached state of a user; call after a role change or delete. */
+    public void evict(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // After commit, so a concurrent request can't re-cache the old state
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    currentRoles.synchronous().invalidate(userId);
+                }
+            });
+        } else {
+            currentRoles.synchronous().invalidate(userId);
+        }
+    }
 }
@@ -0,0 +1,209 @@
+package com.sounditout.backend.services;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sounditout.backend.repositories.JdbcCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full history export of one student (progress reports, then study plans) for parent
+ * conferences and audits.
+ *
+ * Both queries run on forward-only JDBC cursors ({@link JdbcCursor}) inside one read-only
+ * REPEATABLE READ transaction, so the file is a consistent snapshot. Rows are written as
+ * they are fetched and flushed once per fetch, so memory stays flat for any history size.
+ *
+ * NDJSON: one object per line with a {@code type} of "report" or "plan".
+ * CSV: one header row covering both record types; columns that don't apply are empty.
+ */
+@Slf4j
+@Service
+public class HistoryExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    static final String CSV_HEADER = "type,id,date,lessonTopic,initialGradeLevel,difficulty,milestone,notes,"
+            + "accomplishments,improvementsNeeded,weekStart,goals,tasks";
+
+    private final JdbcCursor jdbcCursor;
+    private final TransactionTemplate snapshotTx;
+    private final ObjectWriter writer;
+
+    public HistoryExportService(JdbcCursor jdbcCursor,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper) {
+        this.jdbcCursor = jdbcCursor;
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx.setReadOnly(true);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writer = objectMapper.writer();
+    }
+
+    public record ReportRow(String type, Long id, LocalDate date, String lessonTopic, int initialGradeLevel,
+                            int difficulty, String milestone, String notes, String accomplishments,
+                            String improvementsNeeded) { }
+
+    public record PlanRow(String type, Long id, LocalDate weekStart, String goals,
+                          @JsonRawValue String tasks) { }   // tasks is the stored jsonb, passed through as-is
+
+    /** Write the export to {@code target}; with gzip the bytes are a .gz file of the same content. */
+    public void export(Long studentId, Format format, boolean gzip, OutputStream target) throws IOException {
+        OutputStream out = gzip ? new GZIPOutputStream(target, 64 * 1024, true) : target;
+        RowSink sink = format == Format.CSV ? new CsvSink(out) : new NdjsonSink(out);
+
+        long[] rows = new long[2];
+        try {
+            snapshotTx.executeWithoutResult(status -> {
+                int flushEvery = jdbcCursor.fetchSize();
+                rows[0] = jdbcCursor.forEach("""
+                        SELECT id, date, lesson_topic, initial_grade_level, difficulty, milestone, notes,
+                               accomplishments, improvements_needed
+                        FROM progress_report
+                        WHERE student_id = ?
+                        ORDER BY date, id
+                        """, REPORT_ROW, (row, n) -> {
+                    sink.report(row);
+                    if (n % flushEvery == 0) sink.flush();
+                }, studentId);
+                rows[1] = jdbcCursor.forEach("""
+                        SELECT id, week_start, goals, tasks::text AS tasks
+                        FROM study_plan
+                        WHERE student_id = ?
+                        ORDER BY week_start, id
+                        """, PLAN_ROW, (row, n) -> {
+                    sink.plan(row);
+                    if (n % flushEvery == 0) sink.flush();
+                }, studentId);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        sink.flush();
+        if (out instanceof GZIPOutputStream gz) gz.finish();
+        log.info("Exported {} report(s) and {} plan(s) for student {} as {}{}",
+                rows[0], rows[1], studentId, format, gzip ? " (gzip)" : "");
+    }
+
+    // ---------- Output formats ----------
+
+    private interface RowSink {
+        void report(ReportRow row) throws IOException;
+        void plan(PlanRow row) throws IOException;
+        void flush() throws IOException;
+    }
+
+    private final class NdjsonSink implements RowSink {
+        private final OutputStream out;
+
+        NdjsonSink(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void report(ReportRow row) throws IOException {
+            NdjsonStreamService.writeLine(writer, out, row);
+        }
+
+        @Override
+        public void plan(PlanRow row) throws IOException {
+            NdjsonStreamService.writeLine(writer, out, row);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static final class CsvSink implements RowSink {
+        private final Writer out;
+
+        CsvSink(OutputStream target) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            out.write(CSV_HEADER);
+            out.write("\r\n");
+        }
+
+        @Override
+        public void report(ReportRow r) throws IOException {
+            line(r.type(), r.id(), r.date(), r.lessonTopic(), r.initialGradeLevel(), r.difficulty(),
+                    r.milestone(), r.notes(), r.accomplishments(), r.improvementsNeeded(), null, null, null);
+        }
+
+        @Override
+        public void plan(PlanRow p) throws IOException {
+            line(p.type(), p.id(), null, null, null, null,
+                    null, null, null, null, p.weekStart(), p.goals(), p.tasks());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private void line(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                if (values[i] instanceof Number n) {
+                    out.write(n.toString());
+                } else if (values[i] != null) {
+                    out.write(escape(values[i].toString()));
+                }
+            }
+            out.write("\r\n");
+        }
+    }
+
+    /**
+     * RFC 4180 quoting: only fields with a comma, quote or line break are quoted. Text starting
+     * with =, +, -, @, tab or CR gets a leading ' first, so spreadsheets don't run it as a formula.
+     */
+    static String escape(String value) {
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static final RowMapper<ReportRow> REPORT_ROW = (rs, i) -> new ReportRow(
+            "report",
+            rs.getLong("id"),
+            rs.getObject("date", LocalDate.class),
+            rs.getString("lesson_topic"),
+            rs.getInt("initial_grade_level"),
+            rs.getInt("difficulty"),
+            rs.getString("milestone"),
+            rs.getString("notes"),
+            rs.getString("accomplishments"),
+            rs.getString("improvements_needed")
+    );
+
+    private static final RowMapper<PlanRow> PLAN_ROW = (rs, i) -> new PlanRow(
+            "plan",
+            rs.getLong("id"),
+            rs.getObject("week_start", LocalDate.class),
+            rs.getString("goals"),
+            rs.getString("tasks")
+    );
+}
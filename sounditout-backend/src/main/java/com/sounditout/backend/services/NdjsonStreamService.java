@@ -0,0 +1,102 @@
+package com.sounditout.backend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.sounditout.backend.domainLayer.enums.GradeRange;
+import com.sounditout.backend.domainLayer.enums.StudentGroup;
+import com.sounditout.backend.repositories.JdbcCursor;
+import com.sounditout.backend.weblayer.dtos.ProgressReportResponse;
+import com.sounditout.backend.weblayer.dtos.StudentResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Writes list endpoints as NDJSON (one JSON object per line) straight off a JDBC cursor.
+ *
+ * Rows are mapped to the same DTOs as the paged endpoints, without entities or a
+ * persistence context. Output is flushed once per fetched batch, so memory stays flat
+ * and the client sees rows while the query is still running.
+ */
+@Slf4j
+@Service
+public class NdjsonStreamService {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    private final JdbcCursor jdbcCursor;
+    private final ObjectWriter writer;
+
+    public NdjsonStreamService(JdbcCursor jdbcCursor, ObjectMapper objectMapper) {
+        this.jdbcCursor = jdbcCursor;
+        this.writer = objectMapper.writer();
+    }
+
+    /** All students, in id order. */
+    public void streamStudents(OutputStream out) throws IOException {
+        stream(out, """
+                SELECT id, full_name, grade, student_group, age, created_at, updated_at
+                FROM student
+                ORDER BY id
+                """, STUDENT_ROW);
+    }
+
+    /** One student's reports, in id order. */
+    public void streamReports(Long studentId, OutputStream out) throws IOException {
+        stream(out, """
+                SELECT id, date, lesson_topic, initial_grade_level, difficulty, milestone, notes,
+                       student_id, accomplishments, improvements_needed
+                FROM progress_report
+                WHERE student_id = ?
+                ORDER BY id
+                """, REPORT_ROW, studentId);
+    }
+
+    private <T> void stream(OutputStream out, String sql, RowMapper<T> mapper, Object... args) throws IOException {
+        int flushEvery = jdbcCursor.fetchSize();
+        long rows = jdbcCursor.forEach(sql, mapper, (row, n) -> {
+            writeLine(writer, out, row);
+            if (n % flushEvery == 0) out.flush();
+        }, args);
+        out.flush();
+        log.debug("Streamed {} NDJSON rows", rows);
+    }
+
+    /** One NDJSON line. */
+    static void writeLine(ObjectWriter writer, OutputStream out, Object value) throws IOException {
+        out.write(writer.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
+    private static final RowMapper<StudentResponse> STUDENT_ROW = (rs, i) -> {
+        String group = rs.getString("student_group");
+        return new StudentResponse(
+                rs.getLong("id"),
+                rs.getString("full_name"),
+                GradeRange.valueOf(rs.getString("grade")),
+                group == null ? null : StudentGroup.valueOf(group),
+                rs.getInt("age"),
+                rs.getObject("created_at", LocalDate.class),
+                rs.getObject("updated_at", LocalDate.class)
+        );
+    };
+
+    private static final RowMapper<ProgressReportResponse> REPORT_ROW = (rs, i) -> new ProgressReportResponse(
+            rs.getLong("id"),
+            rs.getObject("date", LocalDate.class),
+            rs.getString("lesson_topic"),
+            rs.getInt("initial_grade_level"),
+            rs.getInt("difficulty"),
+            rs.getString("milestone"),
+            rs.getString("notes"),
+            rs.getLong("student_id"),
+            rs.getString("accomplishments"),
+            rs.getString("improvements_needed")
+    );
+}
@@ -0,0 +1,89 @@
+package com.sounditout.backend.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for a streamed study-plan reply.
+ *
+ * Chunks of model output are fed as they arrive; every element of the top-level
+ * {@code "tasks"} array is returned as soon as its closing brace has been seen.
+ * The full text is kept as well so the caller can parse the whole reply at the end.
+ */
+final class PlanTaskStreamParser {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final StringBuilder fullText = new StringBuilder();
+
+    private int depth;              // object/array nesting of the current token
+    private boolean inTasks;        // inside the top-level "tasks" array
+    private TokenBuffer current;    // tokens of the task element being read
+
+    PlanTaskStreamParser(ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** Feed the next chunk; returns the tasks completed by it (usually none or one). */
+    List<JsonNode> feed(String chunk) throws IOException {
+        if (chunk == null || chunk.isEmpty()) return List.of();
+        fullText.append(chunk);
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+
+        List<JsonNode> done = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            onToken(token, done);
+        }
+        return done;
+    }
+
+    /** Everything fed so far. */
+    String fullText() {
+        return fullText.toString();
+    }
+
+    void close() throws IOException {
+        feeder.endOfInput();
+        parser.close();
+    }
+
+    private void onToken(JsonToken token, List<JsonNode> done) throws IOException {
+        if (token.isStructStart()) depth++;
+
+        if (inTasks) {
+            if (token == JsonToken.END_ARRAY && depth == 2) {
+                inTasks = false;            // end of "tasks"
+            } else {
+                if (current == null && token == JsonToken.START_OBJECT && depth == 3) {
+                    current = new TokenBuffer(objectMapper, false);
+                }
+                if (current != null) {
+                    current.copyCurrentEvent(parser);
+                    if (token == JsonToken.END_OBJECT && depth == 3) {
+                        done.add(objectMapper.readTree(current.asParser(objectMapper)));
+                        current = null;
+                    }
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY && depth == 2 && "tasks".equals(parser.currentName())) {
+            inTasks = true;
+        }
+
+        if (token.isStructEnd()) depth--;
+    }
+}
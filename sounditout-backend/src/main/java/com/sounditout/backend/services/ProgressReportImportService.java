@@ -0,0 +1,234 @@
+package com.sounditout.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sounditout.backend.domainLayer.entity.ProgressReport;
+import com.sounditout.backend.domainLayer.entity.Student;
+import com.sounditout.backend.repositories.ProgressReportRepository;
+import com.sounditout.backend.repositories.StudentRepository;
+import com.sounditout.backend.services.ReportEmbeddingBatcher.PendingEmbedding;
+import com.sounditout.backend.weblayer.dtos.ProgressReportDTO;
+import com.sounditout.backend.weblayer.dtos.ReportImportResponse;
+import com.sounditout.backend.weblayer.dtos.ReportImportResponse.RowError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of one student's progress reports from CSV or NDJSON.
+ *
+ * The upload is read row by row. Rows are validated like the single-report endpoint, and
+ * valid ones are written {@code app.import.batch-size} at a time through
+ * {@link ProgressReportRepository#insertAll} (ids from the sequence, one JDBC batch).
+ * After each batch commits its embeddings are computed in one call on {@code aiExecutor},
+ * so the upload never waits on OpenAI. Invalid rows and failed batches end up in the
+ * per-row error report; everything else is imported.
+ */
+@Slf4j
+@Service
+public class ProgressReportImportService {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    // CSV header -> ProgressReportDTO property (headers are matched case-insensitively)
+    private static final Map<String, String> CSV_COLUMNS = Set.of(
+            "date", "lessonTopic", "difficulty", "initialGradeLevel", "milestone",
+            "notes", "accomplishments", "improvementsNeeded"
+    ).stream().collect(Collectors.toMap(c -> c.toLowerCase(Locale.ROOT), c -> c));
+
+    public enum Format { CSV, NDJSON }
+
+    private final ProgressReportRepository progressReportRepository;
+    private final StudentRepository studentRepository;
+    private final ReportEmbeddingBatcher embeddingBatcher;
+    private final TaskExecutor aiExecutor;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${app.import.batch-size:256}")
+    private int batchSize;
+
+    public ProgressReportImportService(ProgressReportRepository progressReportRepository,
+                                       StudentRepository studentRepository,
+                                       ReportEmbeddingBatcher embeddingBatcher,
+                                       @Qualifier("aiExecutor") TaskExecutor aiExecutor,
+                                       ObjectMapper objectMapper,
+                                       Validator validator) {
+        this.progressReportRepository = progressReportRepository;
+        this.studentRepository = studentRepository;
+        this.embeddingBatcher = embeddingBatcher;
+        this.aiExecutor = aiExecutor;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    public ReportImportResponse importReports(Long studentId, Format format, InputStream body) throws IOException {
+        if (!studentRepository.existsById(studentId)) {
+            throw new RuntimeException("Student not found");
+        }
+
+        Run run = new Run(studentId);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        run.flush();
+
+        return new ReportImportResponse(studentId, run.received, run.imported, run.errorCount,
+                run.errors, run.errorCount > run.errors.size());
+    }
+
+    // ---------- Input formats ----------
+
+    private void readNdjson(BufferedReader reader, Run run) throws IOException {
+        String line;
+        long lineNo = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            run.received++;
+            ProgressReportDTO dto;
+            try {
+                dto = objectMapper.readValue(line, ProgressReportDTO.class);
+            } catch (JsonProcessingException e) {
+                run.fail(lineNo, "Invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(lineNo, dto);
+        }
+    }
+
+    private void readCsv(BufferedReader reader, Run run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) return;
+
+        String[] properties = new String[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            properties[i] = CSV_COLUMNS.get(header.get(i).trim().toLowerCase(Locale.ROOT)); // null = ignored column
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            run.received++;
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < Math.min(record.size(), properties.length); i++) {
+                String value = record.get(i).trim();
+                if (properties[i] != null && !value.isEmpty()) values.put(properties[i], value);
+            }
+            ProgressReportDTO dto;
+            try {
+                dto = objectMapper.convertValue(values, ProgressReportDTO.class);
+            } catch (IllegalArgumentException e) {
+                run.fail(csv.recordLine(), "Invalid value: " + e.getMessage());
+                continue;
+            }
+            run.accept(csv.recordLine(), dto);
+        }
+    }
+
+    // ---------- One import ----------
+
+    /** Counters, error report and the batch being filled for one upload. */
+    private final class Run {
+        final Long studentId;
+        final Student student;
+        final Map<Long, ProgressReport> pending = new LinkedHashMap<>(); // line -> report
+        final List<RowError> errors = new ArrayList<>();
+        int received;
+        int imported;
+        int errorCount;
+
+        Run(Long studentId) {
+            this.studentId = studentId;
+            this.student = Student.builder().id(studentId).build(); // only its id is written
+        }
+
+        void accept(long line, ProgressReportDTO dto) {
+            Set<ConstraintViolation<ProgressReportDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                fail(line, violations.stream()
+                        .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            pending.put(line, ProgressReport.builder()
+                    .student(student)
+                    .date(dto.getDate())
+                    .lessonTopic(dto.getLessonTopic())
+                    .difficulty(dto.getDifficulty())
+                    .initialGradeLevel(dto.getInitialGradeLevel())
+                    .milestone(dto.getMilestone())
+                    .notes(dto.getNotes())
+                    .accomplishments(dto.getAccomplishments())
+                    .improvementsNeeded(dto.getImprovementsNeeded())
+                    .build());
+            if (pending.size() >= batchSize) flush();
+        }
+
+        void fail(long line, String error) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) errors.add(new RowError(line, error));
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+            List<ProgressReport> batch = new ArrayList<>(pending.values());
+            try {
+                progressReportRepository.insertAll(batch);
+                imported += batch.size();
+                embed(batch);
+            } catch (Exception e) {
+                // The batch is one transaction: none of its rows were written
+                log.warn("Report import batch of {} for student {} failed: {}", batch.size(), studentId, e.toString());
+                String message = "Batch insert failed: " + e.getMessage();
+                pending.keySet().forEach(line -> fail(line, message));
+            }
+            pending.clear();
+        }
+
+        void embed(List<ProgressReport> batch) {
+            List<PendingEmbedding> items = batch.stream()
+                    .map(r -> new PendingEmbedding(studentId, r.getId(),
+                            ProgressReportService.nullToEmpty(r.getLessonTopic()),
+                            ProgressReportService.buildEmbeddingContent(r)))
+                    .toList();
+            try {
+                aiExecutor.execute(() -> {
+                    try {
+                        embeddingBatcher.embedAndStore(items, false);
+                    } catch (Exception e) {
+                        // Soft-fail like single reports; /api/admin/ai/reindex can backfill them
+                        log.warn("Embedding of {} imported report(s) for student {} failed: {}",
+                                items.size(), studentId, e.toString());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // AI pool is full: hand them to the regular batcher instead
+                items.forEach(embeddingBatcher::submit);
+            }
+        }
+    }
+}
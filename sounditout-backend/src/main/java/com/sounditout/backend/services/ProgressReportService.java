@@ -6,8 +6,10 @@ import com.sounditout.backend.domainLayer.entity.Student;
 import com.sounditout.backend.weblayer.dtos.ProgressReportResponse;
 import com.sounditout.backend.repositories.ProgressReportRepository;
 import com.sounditout.backend.repositories.StudentRepository;
+import com.sounditout.backend.weblayer.dtos.CursorPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,6 +28,7 @@ public class ProgressReportService {
 
     // 🔗 NEW: AI embedding service
     private final StudyAiService studyAiService;
+    private final StudentVectorIndex studentVectorIndex;
 
     @Transactional
     public ProgressReport create(Long studentId, @Valid ProgressReportDTO dto) {
@@ -64,18 +67,25 @@ public class ProgressReportService {
         return progressReportRepository.findByStudentId(studentId);
     }
 
+    /** One student's reports with id > after (null = from the start), at most limit of them. */
+    @Transactional(readOnly = true)
+    public CursorPage<ProgressReportResponse> getPageByStudent(Long studentId, Long after, int limit) {
+        List<ProgressReportResponse> rows = progressReportRepository.findResponsePage(
+                studentId, after == null ? 0L : after, Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, ProgressReportResponse::getId);
+    }
+
     @Transactional(readOnly = true)
     public Optional<ProgressReport> getById(Long progressReportId) {
         return progressReportRepository.findById(progressReportId);
     }
 
     public void delete(long id){
-        if(!progressReportRepository.existsById(id)){
-            throw new RuntimeException("Report not found");
-        }
-        progressReportRepository.deleteById(id);
-        // Optional: also delete embeddings via a repo method if you add one
-        // embeddingRepo.deleteByReportId(id);
+        ProgressReport report = progressReportRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Report not found"));
+        progressReportRepository.delete(report);
+        // The embedding row goes with it (ON DELETE CASCADE); drop the in-memory copy too
+        studentVectorIndex.invalidate(report.getStudent().getId());
     }
 
     @Transactional
@@ -122,17 +132,15 @@ public class ProgressReportService {
         );
     }
 
-    public List<ProgressReport> getByUserId(Long userId) {
-        Student student = studentRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-
-        return progressReportRepository.findByStudentId(student.getId());
+    @Transactional(readOnly = true)
+    public List<ProgressReportResponse> getByUserId(Long userId) {
+        return progressReportRepository.findResponsesByUserId(userId);
     }
 
     // ---------- Helpers ----------
 
     /** Build a concise text blob for embedding. */
-    private static String buildEmbeddingContent(ProgressReport r) {
+    static String buildEmbeddingContent(ProgressReport r) {
         StringBuilder sb = new StringBuilder(512);
         if (r.getNotes() != null && !r.getNotes().isBlank()) {
             sb.append("Notes: ").append(r.getNotes()).append('\n');
@@ -146,7 +154,7 @@ public class ProgressReportService {
         return sb.toString().isBlank() ? "No details provided." : sb.toString();
     }
 
-    private static String nullToEmpty(String s) {
+    static String nullToEmpty(String s) {
         return s == null ? "" : s;
     }
 
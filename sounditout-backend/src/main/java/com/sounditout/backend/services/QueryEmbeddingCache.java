@@ -0,0 +1,146 @@
+package com.sounditout.backend.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sounditout.backend.config.CacheConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Caches query embeddings for RAG search and plan generation.
+ * Students repeat the same goals constantly, so the same text shouldn't cost
+ * an OpenAI round trip every time.
+ *
+ * Entries are stored as IEEE half-precision floats (2 bytes per dimension
+ * instead of 4) so the cache can hold tens of thousands of 1536-dim vectors.
+ * The precision loss (~1e-3 relative) doesn't change cosine ranking in practice.
+ *
+ * The cache is async: the OpenAI call runs on {@code cacheLoadExecutor} rather than inside
+ * Caffeine's compute lock, and identical queries arriving together share one paid call.
+ */
+@Service
+public class QueryEmbeddingCache {
+
+    private final EmbeddingModel embeddingModel;
+    private final AsyncCache<String, short[]> cache;
+
+    public QueryEmbeddingCache(EmbeddingModel embeddingModel,
+                               MeterRegistry meterRegistry,
+                               @Qualifier("cacheLoadExecutor") TaskExecutor cacheLoadExecutor,
+                               @Value("${ai.query-embedding-cache.max-size:20000}") long maxSize,
+                               @Value("${ai.query-embedding-cache.ttl:7d}") Duration ttl) {
+        this.embeddingModel = embeddingModel;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(cacheLoadExecutor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CacheConfig.QUERY_EMBEDDING_CACHE);
+    }
+
+    /** Normalize a query to improve hit rate (case and whitespace insensitive). */
+    public static String normalize(String query) {
+        if (query == null) return "";
+        return query.trim()
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ");
+    }
+
+    /** Embedding of the normalized query, from cache when possible. */
+    public float[] embed(String query) {
+        String key = normalize(query);
+        try {
+            short[] packed = cache.get(key, (k, executor) ->
+                    CompletableFuture.supplyAsync(() -> toHalf(embeddingModel.embed(k)), executor)).join();
+            return toFloat(packed);
+        } catch (CompletionException e) {
+            // A failed load isn't cached; the next call retries
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    // ---------- float32 <-> float16 (round half to even) ----------
+
+    static short[] toHalf(float[] v) {
+        short[] out = new short[v.length];
+        for (int i = 0; i < v.length; i++) {
+            out[i] = floatToHalf(v[i]);
+        }
+        return out;
+    }
+
+    static float[] toFloat(short[] h) {
+        float[] out = new float[h.length];
+        for (int i = 0; i < h.length; i++) {
+            out[i] = halfToFloat(h[i]);
+        }
+        return out;
+    }
+
+    static short floatToHalf(float f) {
+        int bits = Float.floatToIntBits(f);
+        int sign = (bits >>> 16) & 0x8000;
+        int rawExp = (bits >>> 23) & 0xff;
+        int mant = bits & 0x7fffff;
+
+        if (rawExp == 0xff) {
+            // Inf stays Inf, any NaN becomes a quiet NaN
+            return (short) (sign | 0x7c00 | (mant != 0 ? 0x200 : 0));
+        }
+
+        int exp = rawExp - 127 + 15;
+        if (exp >= 0x1f) {
+            return (short) (sign | 0x7c00); // too large -> Inf
+        }
+        if (exp <= 0) {
+            if (exp < -10) return (short) sign; // too small -> signed zero
+            // Subnormal half: shift the mantissa (with its implicit bit) into place
+            mant |= 0x800000;
+            int shift = 14 - exp;
+            int half = mant >>> shift;
+            int rem = mant & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (rem > halfway || (rem == halfway && (half & 1) != 0)) half++;
+            return (short) (sign | half);
+        }
+
+        int half = (exp << 10) | (mant >>> 13);
+        int rem = mant & 0x1fff;
+        // A carry out of the mantissa bumps the exponent, which is the right rounding
+        if (rem > 0x1000 || (rem == 0x1000 && (half & 1) != 0)) half++;
+        return (short) (sign | half);
+    }
+
+    static float halfToFloat(short h) {
+        int sign = (h & 0x8000) << 16;
+        int exp = (h >>> 10) & 0x1f;
+        int mant = h & 0x3ff;
+
+        if (exp == 0x1f) {
+            return Float.intBitsToFloat(sign | 0x7f800000 | (mant << 13));
+        }
+        if (exp == 0) {
+            if (mant == 0) return Float.intBitsToFloat(sign);
+            // Subnormal half: normalize so it fits a float's implicit leading bit
+            exp = 1;
+            while ((mant & 0x400) == 0) {
+                mant <<= 1;
+                exp--;
+            }
+            mant &= 0x3ff;
+        }
+        return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mant << 13));
+    }
+}
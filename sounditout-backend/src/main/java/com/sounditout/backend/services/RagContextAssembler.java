@@ -0,0 +1,97 @@
+package com.sounditout.backend.services;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingResult;
+import com.knuddels.jtokkit.api.EncodingType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the RAG context block of a prompt within a token budget.
+ *
+ * Tokens are counted locally with the model's BPE encoding (jtokkit, no network). Rows are
+ * taken in the order given, which is best score first, until {@code ai.rag.context-token-budget}
+ * is used up. The first row that doesn't fit is cut to the remaining budget (if at least
+ * {@code ai.rag.min-snippet-tokens} are left) and everything after it is dropped.
+ */
+@Slf4j
+@Component
+public class RagContextAssembler {
+
+    private static final String ELLIPSIS = " \u2026";
+
+    private final Encoding encoding;
+    private final int budget;
+    private final int minSnippetTokens;
+
+    public RagContextAssembler(@Value("${ai.rag.tokenizer-encoding:O200K_BASE}") EncodingType encodingType,
+                               @Value("${ai.rag.context-token-budget:1500}") int budget,
+                               @Value("${ai.rag.min-snippet-tokens:64}") int minSnippetTokens) {
+        this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(encodingType);
+        this.budget = budget;
+        this.minSnippetTokens = minSnippetTokens;
+    }
+
+    /** The assembled block and what went into it. */
+    public record Context(String text, int tokens, int included, int truncated, int dropped) { }
+
+    /** Rows in search shape: [id, student_id, report_id, subject, content, created_at, score, ...]. */
+    public Context assemble(List<Object[]> rows) {
+        StringBuilder ctx = new StringBuilder();
+        int used = 0;
+        int included = 0;
+        int truncated = 0;
+
+        for (Object[] r : rows) {
+            String subject = r[3] != null ? r[3].toString() : "";
+            String content = r[4] != null ? r[4].toString() : "";
+            String head = "Subject: " + subject + "\nContent: ";
+            String tail = "\n---\n";
+            int fixed = encoding.countTokens(head) + encoding.countTokens(tail);
+            int contentTokens = encoding.countTokens(content);
+
+            if (used + fixed + contentTokens <= budget) {
+                ctx.append(head).append(content).append(tail);
+                used += fixed + contentTokens;
+                included++;
+                continue;
+            }
+
+            // Overflow: keep the start of this report if enough budget is left, then stop
+            int room = budget - used - fixed - encoding.countTokens(ELLIPSIS);
+            if (room >= minSnippetTokens) {
+                String snippet = truncate(content, room);
+                ctx.append(head).append(snippet).append(ELLIPSIS).append(tail);
+                used += fixed + encoding.countTokens(snippet) + encoding.countTokens(ELLIPSIS);
+                included++;
+                truncated++;
+            }
+            break;
+        }
+
+        int dropped = rows.size() - included;
+        if (dropped > 0 || truncated > 0) {
+            log.debug("RAG context: {} tokens, {} row(s) included ({} truncated), {} dropped",
+                    used, included, truncated, dropped);
+        }
+        return new Context(ctx.toString(), used, included, truncated, dropped);
+    }
+
+    /** Local token count with the configured encoding. */
+    public int countTokens(String text) {
+        return encoding.countTokens(text);
+    }
+
+    private String truncate(String text, int maxTokens) {
+        EncodingResult result = encoding.encode(text, maxTokens);
+        String decoded = encoding.decode(result.getTokens());
+        // A cut inside a multi-byte character decodes to a replacement char
+        int end = decoded.length();
+        while (end > 0 && decoded.charAt(end - 1) == '\uFFFD') end--;
+        return decoded.substring(0, end);
+    }
+}
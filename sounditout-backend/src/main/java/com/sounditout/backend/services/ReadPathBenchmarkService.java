@@ -0,0 +1,96 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.repositories.ProgressReportRepository;
+import com.sounditout.backend.repositories.StudentRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares the two ways the list endpoints can read a page: loading managed entities and
+ * mapping them with toResponse (the old path), or projecting into the DTO in the query.
+ *
+ * Each path runs {@code iterations} times in its own read-only transaction, after one
+ * warm-up run. Allocation is measured on the calling thread with the HotSpot
+ * ThreadMXBean, so it covers Hibernate and mapping but not the JDBC driver's own buffers
+ * on other threads (there are none here).
+ */
+@Service
+public class ReadPathBenchmarkService {
+
+    private final ProgressReportRepository progressReportRepository;
+    private final StudentRepository studentRepository;
+    private final ProgressReportService progressReportService;
+    private final StudentService studentService;
+    private final TransactionTemplate readOnlyTx;
+
+    public ReadPathBenchmarkService(ProgressReportRepository progressReportRepository,
+                                    StudentRepository studentRepository,
+                                    ProgressReportService progressReportService,
+                                    StudentService studentService,
+                                    PlatformTransactionManager transactionManager) {
+        this.progressReportRepository = progressReportRepository;
+        this.studentRepository = studentRepository;
+        this.progressReportService = progressReportService;
+        this.studentService = studentService;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public record PathResult(String path, int rowsPerRun, double rowsPerSecond, long bytesPerRow) { }
+
+    /** One student's reports page (limit rows) and the first students page, both ways. */
+    public Map<String, Object> run(Long studentId, int limit, int iterations) {
+        Limit page = Limit.of(limit);
+
+        List<PathResult> reports = List.of(
+                measure("entity", iterations, () -> progressReportRepository
+                        .findByStudentIdAndIdGreaterThanOrderByIdAsc(studentId, 0L, page)
+                        .stream().map(progressReportService::toResponse).toList()),
+                measure("projection", iterations, () -> progressReportRepository
+                        .findResponsePage(studentId, 0L, page)));
+
+        List<PathResult> students = List.of(
+                measure("entity", iterations, () -> studentRepository
+                        .findByIdGreaterThanOrderByIdAsc(0L, page)
+                        .stream().map(studentService::toResponse).toList()),
+                measure("projection", iterations, () -> studentRepository
+                        .findResponsePage(0L, page)));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("studentId", studentId);
+        out.put("limit", limit);
+        out.put("iterations", iterations);
+        out.put("reports", reports);
+        out.put("students", students);
+        return out;
+    }
+
+    private PathResult measure(String path, int iterations, Supplier<List<?>> read) {
+        int rows = readOnlyTx.execute(status -> read.get().size()); // warm-up
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytes0 = threads.getCurrentThreadAllocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            readOnlyTx.execute(status -> read.get().size());
+        }
+        long nanos = System.nanoTime() - t0;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytes0;
+
+        long totalRows = (long) rows * iterations;
+        return new PathResult(
+                path,
+                rows,
+                nanos == 0 ? 0 : totalRows * 1_000_000_000.0 / nanos,
+                totalRows == 0 ? 0 : bytes / totalRows);
+    }
+}
@@ -0,0 +1,353 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.domainLayer.entity.ReembedJob;
+import com.sounditout.backend.domainLayer.enums.ReembedJobStatus;
+import com.sounditout.backend.repositories.ProgressReportRepository;
+import com.sounditout.backend.repositories.ReembedJobRepository;
+import com.sounditout.backend.services.ReportEmbeddingBatcher.PendingEmbedding;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Re-embeds every progress report across all students, e.g. after an embedding model change.
+ *
+ * Reports are read in id order, one page at a time. Each page is split into chunks of
+ * {@code ai.reembed.batch-size}; chunks run in parallel on {@code reembedExecutor}, with
+ * OpenAI calls throttled to {@code ai.reembed.requests-per-minute}. A failed chunk is retried
+ * (up to {@code ai.reembed.max-attempts} tries) before the page is checkpointed; only then are
+ * its reports counted as failed. After every page the job row is updated with counters and
+ * the last report id, so a job that was RUNNING when the app stopped picks up from that
+ * checkpoint on the next startup. The job entity is only touched by the job's own thread.
+ *
+ * With several instances, the one running a job holds a lease on its row
+ * ({@code ai.reembed.lease}, renewed at every checkpoint). A starting instance only resumes
+ * a RUNNING job whose lease has lapsed or was released on shutdown, so a job never runs twice.
+ */
+@Slf4j
+@Service
+public class ReembedJobService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long RETRY_BACKOFF_MILLIS = 2_000;
+
+    private final ReembedJobRepository jobRepository;
+    private final ProgressReportRepository progressReportRepository;
+    private final ReportEmbeddingBatcher embeddingBatcher;
+    private final TaskExecutor reembedExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ai.reembed.batch-size:100}")
+    private int batchSize;
+
+    @Value("${ai.reembed.parallelism:4}")
+    private int parallelism;
+
+    @Value("${ai.reembed.requests-per-minute:300}")
+    private int requestsPerMinute;
+
+    @Value("${ai.reembed.max-attempts:3}")
+    private int maxAttempts;
+
+    // Must comfortably outlast one page (retries included), or another instance may take over
+    @Value("${ai.reembed.lease:5m}")
+    private Duration lease;
+
+    // Lease owner id of this instance
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile ActiveRun activeRun;
+    private volatile boolean shuttingDown;
+
+    public ReembedJobService(ReembedJobRepository jobRepository,
+                             ProgressReportRepository progressReportRepository,
+                             ReportEmbeddingBatcher embeddingBatcher,
+                             @Qualifier("reembedExecutor") TaskExecutor reembedExecutor,
+                             TransactionTemplate transactionTemplate) {
+        this.jobRepository = jobRepository;
+        this.progressReportRepository = progressReportRepository;
+        this.embeddingBatcher = embeddingBatcher;
+        this.reembedExecutor = reembedExecutor;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** In-memory state of the job this instance is currently running. */
+    private static final class ActiveRun {
+        final long jobId;
+        final long processedAtStart;
+        final long startedNanos = System.nanoTime();
+        volatile boolean cancelRequested;
+
+        ActiveRun(long jobId, long processedAtStart) {
+            this.jobId = jobId;
+            this.processedAtStart = processedAtStart;
+        }
+    }
+
+    /** Outcome of one chunk on a worker: reports embedded, or the error. */
+    private record ChunkResult(List<PendingEmbedding> chunk, int embedded, Throwable error) { }
+
+    /** Job status plus a throughput-based ETA (null when it can't be estimated yet). */
+    public record JobProgress(ReembedJob job, Long etaSeconds) { }
+
+    // ---------- API ----------
+
+    /** Start a new global job. Returns empty if a job is already running. */
+    public Optional<ReembedJob> start(boolean force) {
+        lock.lock();
+        try {
+            if (jobRepository.findFirstByStatusOrderByIdDesc(ReembedJobStatus.RUNNING).isPresent()) {
+                return Optional.empty();
+            }
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            ReembedJob job = jobRepository.save(ReembedJob.builder()
+                    .status(ReembedJobStatus.RUNNING)
+                    .force(force)
+                    .totalReports(progressReportRepository.count())
+                    .startedAt(now)
+                    .updatedAt(now)
+                    .build());
+            if (claimLease(job)) {
+                launch(job);
+            }
+            return Optional.of(job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<JobProgress> status(Long jobId) {
+        return jobRepository.findById(jobId).map(job -> new JobProgress(job, estimateEta(job)));
+    }
+
+    public List<JobProgress> recentJobs() {
+        return jobRepository.findTop20ByOrderByIdDesc().stream()
+                .map(job -> new JobProgress(job, estimateEta(job)))
+                .toList();
+    }
+
+    /** Ask the running job to stop after its current page. Returns false if it isn't running here. */
+    public boolean cancel(Long jobId) {
+        ActiveRun run = activeRun;
+        if (run == null || run.jobId != jobId) return false;
+        run.cancelRequested = true;
+        return true;
+    }
+
+    /** Resume a job that was RUNNING when its instance stopped, unless another instance holds it. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        lock.lock();
+        try {
+            jobRepository.findFirstByStatusOrderByIdDesc(ReembedJobStatus.RUNNING).ifPresent(job -> {
+                if (!claimLease(job)) {
+                    log.info("Re-embedding job id={} is running on another instance", job.getId());
+                    return;
+                }
+                log.info("Resuming re-embedding job id={} after report id={}", job.getId(), job.getLastReportId());
+                launch(job);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Leave the job RUNNING and release it, so the next instance to start resumes it
+        // from the last checkpoint without waiting for the lease to lapse
+        shuttingDown = true;
+        ActiveRun run = activeRun;
+        if (run != null) {
+            jobRepository.releaseLease(run.jobId, instanceId);
+        }
+    }
+
+    // ---------- Runner ----------
+
+    private void launch(ReembedJob job) {
+        ActiveRun run = new ActiveRun(job.getId(), job.getProcessed());
+        activeRun = run;
+        Thread t = new Thread(() -> runJob(job, run), "reembed-job-" + job.getId());
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void runJob(ReembedJob job, ActiveRun run) {
+        RequestThrottle throttle = new RequestThrottle(requestsPerMinute);
+        int pageSize = batchSize * parallelism;
+        boolean force = job.isForce();
+        try {
+            while (!shuttingDown) {
+                if (run.cancelRequested) {
+                    finish(job, ReembedJobStatus.CANCELLED);
+                    return;
+                }
+
+                List<PendingEmbedding> page = loadPage(job.getLastReportId(), pageSize);
+                if (page.isEmpty()) {
+                    finish(job, ReembedJobStatus.COMPLETED);
+                    return;
+                }
+
+                // One chunk = one embedding request; chunks run in parallel
+                List<List<PendingEmbedding>> pending = new ArrayList<>();
+                for (int from = 0; from < page.size(); from += batchSize) {
+                    pending.add(page.subList(from, Math.min(from + batchSize, page.size())));
+                }
+
+                long embedded = 0;
+                long failed = 0;
+                for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                    if (attempt > 1) {
+                        // Retry only the failed chunks; the checkpoint stays before this page meanwhile
+                        TimeUnit.MILLISECONDS.sleep(RETRY_BACKOFF_MILLIS * (attempt - 1));
+                        if (shuttingDown) return;
+                    }
+                    List<CompletableFuture<ChunkResult>> futures = new ArrayList<>(pending.size());
+                    for (List<PendingEmbedding> chunk : pending) {
+                        futures.add(CompletableFuture.supplyAsync(() -> {
+                            throttle.acquire();
+                            return new ChunkResult(chunk, embeddingBatcher.embedAndStore(chunk, force), null);
+                        }, reembedExecutor).exceptionally(ex -> new ChunkResult(chunk, 0, ex)));
+                    }
+
+                    List<List<PendingEmbedding>> retry = new ArrayList<>();
+                    for (CompletableFuture<ChunkResult> f : futures) {
+                        ChunkResult result = f.join();
+                        if (result.error() == null) {
+                            embedded += result.embedded();
+                            continue;
+                        }
+                        job.setLastError(truncate(result.error().toString()));
+                        if (attempt < maxAttempts) {
+                            log.warn("Re-embedding job id={} chunk of {} report(s) failed (attempt {}/{}), retrying: {}",
+                                    job.getId(), result.chunk().size(), attempt, maxAttempts, result.error().toString());
+                            retry.add(result.chunk());
+                        } else {
+                            log.warn("Re-embedding job id={} chunk of {} report(s) failed after {} attempt(s), skipping: {}",
+                                    job.getId(), result.chunk().size(), attempt, result.error().toString());
+                            failed += result.chunk().size();
+                        }
+                    }
+                    pending = retry;
+                }
+
+                // Checkpoint: every chunk of the page succeeded or ran out of attempts.
+                // Not written once the lease is gone: the job (and its counters) belongs to someone else.
+                if (shuttingDown) return;
+                if (!claimLease(job)) {
+                    log.warn("Re-embedding job id={} lost its lease, stopping here", job.getId());
+                    return;
+                }
+                job.setEmbedded(job.getEmbedded() + embedded);
+                job.setFailed(job.getFailed() + failed);
+                job.setProcessed(job.getProcessed() + page.size());
+                job.setLastReportId(page.get(page.size() - 1).reportId());
+                job.setUpdatedAt(OffsetDateTime.now(ZoneOffset.UTC));
+                jobRepository.save(job);
+            }
+        } catch (Exception e) {
+            log.error("Re-embedding job id={} stopped: {}", job.getId(), e.toString());
+            job.setLastError(truncate(e.toString()));
+            finish(job, ReembedJobStatus.FAILED);
+        } finally {
+            if (activeRun == run) activeRun = null;
+        }
+    }
+
+    /** Take or renew this instance's lease on the job. */
+    private boolean claimLease(ReembedJob job) {
+        return jobRepository.claimLease(job.getId(), instanceId, Math.max(lease.toSeconds(), 1)) == 1;
+    }
+
+    private List<PendingEmbedding> loadPage(long afterReportId, int pageSize) {
+        return transactionTemplate.execute(status ->
+                progressReportRepository.findByIdGreaterThanOrderByIdAsc(afterReportId, Limit.of(pageSize))
+                        .stream()
+                        .map(r -> new PendingEmbedding(
+                                r.getStudent().getId(),
+                                r.getId(),
+                                ProgressReportService.nullToEmpty(r.getLessonTopic()),
+                                ProgressReportService.buildEmbeddingContent(r)))
+                        .toList());
+    }
+
+    private void finish(ReembedJob job, ReembedJobStatus status) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        job.setStatus(status);
+        job.setUpdatedAt(now);
+        job.setFinishedAt(now);
+        jobRepository.save(job);
+        log.info("Re-embedding job id={} {}: processed={}, embedded={}, failed={}",
+                job.getId(), status, job.getProcessed(), job.getEmbedded(), job.getFailed());
+    }
+
+    private Long estimateEta(ReembedJob job) {
+        if (job.getStatus() != ReembedJobStatus.RUNNING) return 0L;
+        ActiveRun run = activeRun;
+        if (run == null || run.jobId != job.getId()) return null;
+
+        long done = job.getProcessed() - run.processedAtStart;
+        long elapsedNanos = System.nanoTime() - run.startedNanos;
+        if (done <= 0 || elapsedNanos <= 0) return null;
+
+        long remaining = Math.max(job.getTotalReports() - job.getProcessed(), 0);
+        double perSecond = done / (elapsedNanos / 1e9);
+        return Math.round(remaining / perSecond);
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /** Spaces requests evenly so the job never exceeds the configured requests per minute. */
+    private static final class RequestThrottle {
+        private final long intervalNanos;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long nextSlot = System.nanoTime();
+
+        RequestThrottle(int requestsPerMinute) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(requestsPerMinute, 1);
+        }
+
+        void acquire() {
+            long wait;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                long slot = Math.max(nextSlot, now);
+                nextSlot = slot + intervalNanos;
+                wait = slot - now;
+            } finally {
+                lock.unlock();
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.repositories.ReportEmbeddingRepository;
+import com.sounditout.backend.repositories.ReportEmbeddingRepositoryCustom.NewEmbedding;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects report embedding upserts for a short window and flushes them together:
+ * one {@code EmbeddingModel.embed(List)} call and one JDBC batch upsert per flush.
+ *
+ * A flush happens when {@code ai.embedding.batch.max-size} items are pending or
+ * {@code ai.embedding.batch.max-wait} has passed since the first pending item.
+ * Reports whose embedded text hashes the same as the stored row are skipped.
+ * A failed flush is retried with backoff ({@code ai.embedding.batch.max-attempts});
+ * on shutdown whatever is still queued is written before the worker exits.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportEmbeddingBatcher {
+
+    // OpenAI rejects embedding requests with more inputs than this
+    private static final int OPENAI_MAX_INPUTS = 2048;
+
+    private final EmbeddingModel embeddingModel;
+    private final ReportEmbeddingRepository embeddingRepo;
+    private final StudentVectorIndex studentVectorIndex;
+
+    @Value("${ai.embedding.batch.max-size:64}")
+    private int maxBatchSize;
+
+    @Value("${ai.embedding.batch.max-wait:250ms}")
+    private Duration maxWait;
+
+    @Value("${ai.embedding.batch.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${ai.embedding.batch.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread worker;
+
+    /** A report waiting to be embedded. */
+    public record PendingEmbedding(Long studentId, Long reportId, String subject, String content) {
+
+        /** Build a single string for embedding (RAG-friendly). */
+        String document() {
+            String safeSubject = subject == null ? "" : subject;
+            String safeContent = content == null ? "" : content;
+            return """
+                    Subject: %s
+
+                    %s
+                    """.formatted(safeSubject, safeContent);
+        }
+
+        /** SHA-256 (hex) of the embedded document; equal hash means equal embedding input. */
+        String contentHash() {
+            try {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                return HexFormat.of().formatHex(sha.digest(document().getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        maxBatchSize = Math.min(Math.max(maxBatchSize, 1), OPENAI_MAX_INPUTS);
+        running = true;
+        worker = new Thread(this::runLoop, "embedding-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Let the worker drain what is already queued, but don't hold shutdown forever.
+        // If it is still busy (e.g. backing off), interrupt it: it then writes what it holds once.
+        running = false;
+        worker.join(Duration.ofSeconds(10).toMillis());
+        if (worker.isAlive()) {
+            worker.interrupt();
+            worker.join(Duration.ofSeconds(10).toMillis());
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Shutting down with {} report(s) not embedded; the next re-embed job picks them up", queue.size());
+        }
+    }
+
+    /**
+     * Queue a report for embedding. Inside a transaction the item is only queued
+     * after commit, so the batch never references a report row that rolled back.
+     */
+    public void submit(PendingEmbedding item) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.offer(item);
+                }
+            });
+        } else {
+            queue.offer(item);
+        }
+    }
+
+    private void runLoop() {
+        List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingEmbedding first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Keep collecting until the batch is full or the window closes
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    PendingEmbedding next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                flushWithRetry(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Interrupted while collecting or backing off: write what we hold, plus the queue, once
+            queue.drainTo(batch);
+            if (!batch.isEmpty()) {
+                try {
+                    flush(batch);
+                } catch (RuntimeException ex) {
+                    log.warn("Final embedding flush of {} report(s) failed: {}", batch.size(), ex.toString());
+                }
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Flush the batch, retrying with doubling backoff. After the last attempt the batch is
+     * logged and dropped; the reports keep no stored hash, so the next re-embed job picks them up.
+     */
+    void flushWithRetry(List<PendingEmbedding> batch) throws InterruptedException {
+        long backoffMs = retryBackoff.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Embedding batch of {} report(s) failed after {} attempt(s), dropping it: {}",
+                            batch.size(), attempt, e.toString());
+                    return;
+                }
+                log.info("Embedding batch of {} report(s) failed (attempt {}/{}), retrying in {} ms: {}",
+                        batch.size(), attempt, maxAttempts, backoffMs, e.toString());
+                Thread.sleep(backoffMs);
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    private void flush(List<PendingEmbedding> batch) {
+        int written = embedAndStore(batch, false);
+        log.debug("Embedded and stored {} of {} report(s) in one batch", written, batch.size());
+    }
+
+    /**
+     * Embed and upsert the given reports right away, on the calling thread.
+     * Unless {@code force} is set, reports whose stored content hash matches are skipped.
+     * Callers may pass any number of reports; they are sent in slices of at most
+     * {@value #OPENAI_MAX_INPUTS} inputs. Returns the number of rows written.
+     */
+    public int embedAndStore(List<PendingEmbedding> batch, boolean force) {
+        // If the same report was saved twice inside one window, only the latest text counts
+        Map<Long, PendingEmbedding> latest = new LinkedHashMap<>();
+        for (PendingEmbedding p : batch) {
+            latest.put(p.reportId(), p);
+        }
+
+        Map<Long, String> storedHashes = force ? Map.of() : embeddingRepo.findContentHashes(latest.keySet());
+
+        List<PendingEmbedding> items = new ArrayList<>(latest.size());
+        List<String> hashes = new ArrayList<>(latest.size());
+        for (PendingEmbedding p : latest.values()) {
+            String hash = p.contentHash();
+            if (!force && hash.equals(storedHashes.get(p.reportId()))) continue; // unchanged
+            items.add(p);
+            hashes.add(hash);
+        }
+        int written = 0;
+        for (int from = 0; from < items.size(); from += OPENAI_MAX_INPUTS) {
+            int to = Math.min(from + OPENAI_MAX_INPUTS, items.size());
+            written += embedSlice(items.subList(from, to), hashes.subList(from, to));
+        }
+        return written;
+    }
+
+    private int embedSlice(List<PendingEmbedding> items, List<String> hashes) {
+        List<String> docs = items.stream().map(PendingEmbedding::document).toList();
+        List<float[]> vectors = embeddingModel.embed(docs);
+
+        List<NewEmbedding> rows = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            PendingEmbedding p = items.get(i);
+            rows.add(new NewEmbedding(p.studentId(), p.reportId(), p.subject(), p.content(),
+                    hashes.get(i), vectors.get(i)));
+        }
+
+        int written = embeddingRepo.upsertEmbeddings(rows);
+        studentVectorIndex.invalidate(rows.stream().map(NewEmbedding::studentId).distinct().toList());
+        return written;
+    }
+}
@@ -0,0 +1,275 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.repositories.EmbeddingStorage;
+import com.sounditout.backend.repositories.EmbeddingStorageFormat;
+import com.sounditout.backend.repositories.PgVector;
+import com.sounditout.backend.repositories.ReportEmbeddingRepository;
+import com.sounditout.backend.repositories.ReportEmbeddingRepositoryCustom.SampledEmbedding;
+import com.sounditout.backend.repositories.VectorSearchMode;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.util.PGobject;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Measures recall@k and latency of each vector search mode against the live table.
+ * Stored embeddings are used as queries, and EXACT results are the ground truth.
+ * Load the table to the size you care about (10k, 100k, 1M rows) before running it.
+ *
+ * {@link #runStorage} does the same for storage formats (fewer dimensions, halfvec):
+ * recall of an exact search in each format next to what it would cost on disk.
+ *
+ * {@link #runCodec} compares ways of binding the query vector: the old String.format text
+ * literal cast in SQL, and a {@link PgVector} parameter (text or binary wire format).
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchBenchmarkService {
+
+    private final ReportEmbeddingRepository embeddingRepo;
+    private final EmbeddingStorage embeddingStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    public record ModeResult(VectorSearchMode mode, double recallAtK, double p50Millis, double p99Millis) { }
+
+    public record StorageResult(String format, double recallAtK, long bytesPerVector,
+                                long projectedVectorBytes, double sizeVsCurrent) { }
+
+    public record CodecResult(String codec, long encodedBytes, double encodeMicros,
+                              double bindP50Millis, double bindP99Millis,
+                              double searchP50Millis, double searchP99Millis) { }
+
+    public Map<String, Object> run(int samples, int k, List<VectorSearchMode> modes) {
+        List<SampledEmbedding> queries = embeddingRepo.sampleEmbeddings(samples);
+
+        // Ground truth per query (exact scan)
+        List<Set<Long>> truth = new ArrayList<>(queries.size());
+        for (SampledEmbedding q : queries) {
+            truth.add(reportIds(embeddingRepo.searchTopKWithScore(
+                    q.studentId(), q.embedding(), k, null, VectorSearchMode.EXACT)));
+        }
+
+        List<ModeResult> results = new ArrayList<>();
+        for (VectorSearchMode mode : modes) {
+            long[] nanos = new long[queries.size()];
+            double recallSum = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                SampledEmbedding q = queries.get(i);
+                long t0 = System.nanoTime();
+                List<Object[]> rows = embeddingRepo.searchTopKWithScore(q.studentId(), q.embedding(), k, null, mode);
+                nanos[i] = System.nanoTime() - t0;
+
+                Set<Long> expected = truth.get(i);
+                if (expected.isEmpty()) {
+                    recallSum += 1.0;
+                    continue;
+                }
+                Set<Long> found = reportIds(rows);
+                found.retainAll(expected);
+                recallSum += (double) found.size() / expected.size();
+            }
+            Arrays.sort(nanos);
+            results.add(new ModeResult(
+                    mode,
+                    queries.isEmpty() ? 0 : recallSum / queries.size(),
+                    percentileMillis(nanos, 0.50),
+                    percentileMillis(nanos, 0.99)));
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("rows", embeddingRepo.count());
+        out.put("samples", queries.size());
+        out.put("k", k);
+        out.put("results", results);
+        return out;
+    }
+
+    /**
+     * Recall@k of each candidate format against the current column, plus its vector size for
+     * the current row count. Formats can't have more dimensions than the stored vectors.
+     */
+    public Map<String, Object> runStorage(int samples, int k, List<EmbeddingStorageFormat> formats) {
+        EmbeddingStorageFormat current = embeddingStorage.current();
+        for (EmbeddingStorageFormat f : formats) {
+            if (f.dimensions() > current.dimensions()) {
+                throw new IllegalArgumentException(f + " has more dimensions than the stored " + current);
+            }
+        }
+
+        List<SampledEmbedding> queries = embeddingRepo.sampleEmbeddings(samples);
+        List<Set<Long>> truth = new ArrayList<>(queries.size());
+        for (SampledEmbedding q : queries) {
+            truth.add(reportIds(embeddingRepo.searchTopKWithScore(
+                    q.studentId(), q.embedding(), k, null, VectorSearchMode.EXACT)));
+        }
+
+        long rows = embeddingRepo.count();
+        List<StorageResult> results = new ArrayList<>();
+        for (EmbeddingStorageFormat format : formats) {
+            double recallSum = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                SampledEmbedding q = queries.get(i);
+                Set<Long> expected = truth.get(i);
+                if (expected.isEmpty()) {
+                    recallSum += 1.0;
+                    continue;
+                }
+                Set<Long> found = new HashSet<>(
+                        embeddingRepo.exactTopKReportIdsAs(q.studentId(), q.embedding(), k, format));
+                found.retainAll(expected);
+                recallSum += (double) found.size() / expected.size();
+            }
+            results.add(new StorageResult(
+                    format.sqlType(),
+                    queries.isEmpty() ? 0 : recallSum / queries.size(),
+                    format.bytesPerVector(),
+                    rows * format.bytesPerVector(),
+                    (double) format.bytesPerVector() / current.bytesPerVector()));
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("current", embeddingStorage.stats());
+        out.put("samples", queries.size());
+        out.put("k", k);
+        out.put("results", results);
+        return out;
+    }
+
+    /**
+     * Per sampled embedding and codec: client-side encode time and size, a bind round trip (the
+     * parameter parsed into the column type, which is what each inserted row pays) and an exact
+     * top-k search. Codecs are the old String.format literal, PgVector's formatter sent as text,
+     * and PgVector itself, which the driver sends in binary when the connection has
+     * {@code binaryTransferEnable} set for the vector OID (and as text otherwise).
+     */
+    public Map<String, Object> runCodec(int samples, int k) {
+        List<SampledEmbedding> queries = embeddingRepo.sampleEmbeddings(samples);
+        EmbeddingStorageFormat format = embeddingStorage.current();
+        String textParam = "CAST(? AS " + format.sqlType() + ")";
+        List<CodecResult> results = List.of(
+                measureCodec("legacy-text", queries, k, textParam,
+                        SearchBenchmarkService::legacyLiteral, String::length),
+                measureCodec("pgvector-text", queries, k, embeddingStorage.param(),
+                        SearchBenchmarkService::textOnly, v -> v.getValue().length()),
+                measureCodec("pgvector", queries, k, embeddingStorage.param(),
+                        PgVector::of, SearchBenchmarkService::binarySize));
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("format", format.sqlType());
+        out.put("samples", queries.size());
+        out.put("k", k);
+        out.put("results", results);
+        return out;
+    }
+
+    private <T> CodecResult measureCodec(String codec, List<SampledEmbedding> queries, int k, String param,
+                                         Function<float[], T> encoder, ToIntFunction<T> size) {
+        // %1$s is the vector parameter, as in the repository's queries
+        String bindSql = "SELECT vector_dims(%1$s)".formatted(param);
+        String searchSql = """
+                SELECT report_id
+                FROM report_embedding
+                WHERE student_id = ?
+                ORDER BY embedding <=> %1$s
+                LIMIT ?
+                """.formatted(param);
+
+        long[] bindNanos = new long[queries.size()];
+        long[] searchNanos = new long[queries.size()];
+        long encodeNanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            SampledEmbedding q = queries.get(i);
+            float[] v = embeddingStorage.fit(q.embedding());
+
+            long t0 = System.nanoTime();
+            T encoded = encoder.apply(v);
+            bytes = size.applyAsInt(encoded);
+            encodeNanos += System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            jdbcTemplate.queryForObject(bindSql, Integer.class, encoder.apply(v));
+            bindNanos[i] = System.nanoTime() - t0;
+
+            t0 = System.nanoTime();
+            jdbcTemplate.queryForList(searchSql, Long.class, q.studentId(), encoder.apply(v), k);
+            searchNanos[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(bindNanos);
+        Arrays.sort(searchNanos);
+        return new CodecResult(
+                codec,
+                bytes,
+                queries.isEmpty() ? 0 : encodeNanos / 1_000.0 / queries.size(),
+                percentileMillis(bindNanos, 0.50),
+                percentileMillis(bindNanos, 0.99),
+                percentileMillis(searchNanos, 0.50),
+                percentileMillis(searchNanos, 0.99));
+    }
+
+    /** PgVector's text form in a plain PGobject, so the driver can't switch it to binary. */
+    private static PGobject textOnly(float[] v) {
+        PGobject o = new PGobject();
+        o.setType("vector");
+        try {
+            o.setValue(PgVector.format(v));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return o;
+    }
+
+    private static int binarySize(PgVector v) {
+        byte[] bytes = new byte[v.lengthInBytes()];
+        v.toBytes(bytes, 0);
+        return bytes.length;
+    }
+
+    /** The query literal as it was built before PgVector: one String.format per element. */
+    private static String legacyLiteral(float[] v) {
+        StringBuilder sb = new StringBuilder(v.length * 10).append('[');
+        for (int i = 0; i < v.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(String.format(Locale.ROOT, "%.6f", v[i]));
+        }
+        return sb.append(']').toString();
+    }
+
+    /** vector and halfvec at the stored size and at 1024/768/512/256 dimensions where smaller. */
+    public List<EmbeddingStorageFormat> defaultStorageCandidates() {
+        int dims = embeddingStorage.current().dimensions();
+        List<EmbeddingStorageFormat> out = new ArrayList<>();
+        for (int d : new int[] { dims, 1024, 768, 512, 256 }) {
+            if (d > dims || (d == dims && !out.isEmpty())) continue;
+            out.add(new EmbeddingStorageFormat(EmbeddingStorageFormat.Type.VECTOR, d));
+            out.add(new EmbeddingStorageFormat(EmbeddingStorageFormat.Type.HALFVEC, d));
+        }
+        return out;
+    }
+
+    private static Set<Long> reportIds(List<Object[]> rows) {
+        Set<Long> ids = new HashSet<>();
+        for (Object[] r : rows) {
+            ids.add((Long) r[2]);
+        }
+        return ids;
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) return 0;
+        int idx = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(idx, 0)] / 1_000_000.0;
+    }
+}
@@ -4,10 +4,13 @@ import com.sounditout.backend.domainLayer.entity.Student;
 import com.sounditout.backend.domainLayer.enums.StudentGroup;
 import com.sounditout.backend.repositories.StudentRepository;
 import com.sounditout.backend.repositories.UserRepository;
+import com.sounditout.backend.weblayer.dtos.CursorPage;
 import com.sounditout.backend.weblayer.dtos.StudentDTO;
 import com.sounditout.backend.weblayer.dtos.StudentResponse;
+import com.sounditout.backend.weblayer.dtos.StudentSuggestion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +23,7 @@ public class StudentService {
 
     private final StudentRepository studentRepository;
     private final UserRepository userRepository;
+    private final CustomUserDetailsService userDetailsService;
 
     public StudentResponse create(@Valid StudentDTO dto) {
         Student student = Student.builder()
@@ -68,6 +72,8 @@ public class StudentService {
 
         // First delete the associated user
         userRepository.delete(existing.getUser());
+        // Their token stays valid until expiry; make the filter re-check the user now
+        userDetailsService.evict(existing.getUser().getId());
 
         // Then delete the student (progressReports will be removed due to cascade + orphanRemoval)
         studentRepository.delete(existing);
@@ -98,8 +104,26 @@ public class StudentService {
         return studentRepository.findAll();
     }
 
-    public List<Student> searchByName(String name) {
-        return studentRepository.findByFullNameContainingIgnoreCase(name);
+    /** Students with id > after (null = from the start), at most limit of them. */
+    @Transactional(readOnly = true)
+    public CursorPage<StudentResponse> getPage(Long after, int limit) {
+        List<StudentResponse> rows = studentRepository.findResponsePage(
+                after == null ? 0L : after, Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, StudentResponse::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<StudentResponse> findResponseById(Long id) {
+        return studentRepository.findResponseById(id);
+    }
+
+    /** Best name matches first (trigram similarity, see StudentRepositoryCustom). */
+    public List<StudentResponse> searchByName(String name, int limit) {
+        return studentRepository.searchByName(name, limit);
+    }
+
+    public List<StudentSuggestion> autocomplete(String query, int limit) {
+        return studentRepository.autocomplete(query, limit);
     }
 
 
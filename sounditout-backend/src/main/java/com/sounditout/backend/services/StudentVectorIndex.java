@@ -0,0 +1,195 @@
+package com.sounditout.backend.services;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sounditout.backend.repositories.ReportEmbeddingRepository;
+import com.sounditout.backend.repositories.ReportEmbeddingRepositoryCustom.StoredEmbedding;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Optional in-process retrieval for per-student RAG search.
+ *
+ * Each active student's embeddings are loaded lazily from report_embedding into one
+ * contiguous, pre-normalized float[] (row-major), so cosine top-k is a dot product
+ * per row. The kernel uses the JDK Vector API when available (see {@link VectorMath}).
+ *
+ * pgvector stays the source of truth: entries are dropped whenever embeddings for the
+ * student are written or deleted, and expire after {@code ai.search.in-memory.expire-after-access}.
+ * Disabled by default ({@code ai.search.in-memory.enabled}).
+ */
+@Slf4j
+@Service
+public class StudentVectorIndex {
+
+    private final ReportEmbeddingRepository embeddingRepo;
+    private final VectorMath math = VectorMath.best();
+    private final boolean enabled;
+    private final AsyncLoadingCache<Long, StudentVectors> students;
+
+    public StudentVectorIndex(ReportEmbeddingRepository embeddingRepo,
+                              @Qualifier("cacheLoadExecutor") TaskExecutor cacheLoadExecutor,
+                              @Value("${ai.search.in-memory.enabled:false}") boolean enabled,
+                              @Value("${ai.search.in-memory.max-students:1000}") long maxStudents,
+                              @Value("${ai.search.in-memory.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.embeddingRepo = embeddingRepo;
+        this.enabled = enabled;
+        // Async: loads run on cacheLoadExecutor (not under the compute lock), concurrent misses
+        // share one load, and invalidating a student discards a load that is still running
+        this.students = Caffeine.newBuilder()
+                .maximumSize(maxStudents)
+                .expireAfterAccess(expireAfterAccess)
+                .executor(cacheLoadExecutor)
+                .recordStats()
+                .buildAsync(this::load);
+        if (enabled) {
+            log.info("In-memory vector index enabled ({} kernel)", math.getClass().getSimpleName());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Drop cached vectors for these students; the next search reloads from Postgres. */
+    public void invalidate(Collection<Long> studentIds) {
+        if (enabled) students.synchronous().invalidateAll(studentIds);
+    }
+
+    public void invalidate(Long studentId) {
+        if (enabled) students.synchronous().invalidate(studentId);
+    }
+
+    /** Drop everything, e.g. after the stored embedding format changed. */
+    public void invalidateAll() {
+        if (enabled) students.synchronous().invalidateAll();
+    }
+
+    /**
+     * Cosine top-k over one student's reports, optional subject filter (case-insensitive, contains).
+     *
+     * Row: [id, student_id, report_id, subject, content, created_at, score],
+     * the same shape as {@code ReportEmbeddingRepository.searchTopKWithScore}.
+     */
+    public List<Object[]> search(Long studentId, float[] queryVector, int k, String subjectFilter) {
+        StudentVectors sv;
+        try {
+            sv = students.get(studentId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+        if (sv.size() == 0 || k <= 0) return List.of();
+
+        // Stored vectors may be shorter (reduced-dimension storage): compare on their prefix
+        float[] q = normalized(queryVector.length > sv.dim ? Arrays.copyOf(queryVector, sv.dim) : queryVector);
+        String subjectNeedle = subjectFilter == null || subjectFilter.isBlank()
+                ? null
+                : subjectFilter.toLowerCase(Locale.ROOT);
+
+        // Min-heap of the best k (lowest score on top)
+        PriorityQueue<Hit> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Hit::score));
+        for (int row = 0; row < sv.size(); row++) {
+            if (subjectNeedle != null && !sv.subjectMatches(row, subjectNeedle)) continue;
+            float score = math.dot(sv.matrix, row * sv.dim, q, 0, sv.dim);
+            if (best.size() < k) {
+                best.add(new Hit(score, row));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Hit(score, row));
+            }
+        }
+
+        List<Object[]> out = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            Hit hit = best.poll();
+            int row = hit.row();
+            out.add(new Object[] {
+                    sv.ids[row], studentId, sv.reportIds[row], sv.subjects[row],
+                    sv.contents[row], sv.createdAt[row], (double) hit.score()
+            });
+        }
+        // Heap pops worst first
+        Collections.reverse(out);
+        return out;
+    }
+
+    private record Hit(float score, int row) { }
+
+    private StudentVectors load(Long studentId) {
+        List<StoredEmbedding> rows = embeddingRepo.findAllForStudent(studentId);
+        return StudentVectors.of(rows);
+    }
+
+    private static float[] normalized(float[] v) {
+        double sum = 0;
+        for (float x : v) sum += x * x;
+        float[] out = v.clone();
+        if (sum == 0) return out;
+        float inv = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < out.length; i++) out[i] *= inv;
+        return out;
+    }
+
+    /** One student's embeddings, column arrays plus a contiguous unit-length matrix. */
+    private static final class StudentVectors {
+        final int dim;
+        final float[] matrix;
+        final long[] ids;
+        final long[] reportIds;
+        final String[] subjects;
+        final String[] subjectsLower;
+        final String[] contents;
+        final OffsetDateTime[] createdAt;
+
+        private StudentVectors(int n, int dim) {
+            this.dim = dim;
+            this.matrix = new float[n * dim];
+            this.ids = new long[n];
+            this.reportIds = new long[n];
+            this.subjects = new String[n];
+            this.subjectsLower = new String[n];
+            this.contents = new String[n];
+            this.createdAt = new OffsetDateTime[n];
+        }
+
+        static StudentVectors of(List<StoredEmbedding> rows) {
+            int dim = rows.isEmpty() ? 0 : rows.get(0).embedding().length;
+            StudentVectors sv = new StudentVectors(rows.size(), dim);
+            for (int i = 0; i < rows.size(); i++) {
+                StoredEmbedding r = rows.get(i);
+                System.arraycopy(normalized(r.embedding()), 0, sv.matrix, i * dim, dim);
+                sv.ids[i] = r.id();
+                sv.reportIds[i] = r.reportId();
+                sv.subjects[i] = r.subject();
+                sv.subjectsLower[i] = r.subject() == null ? "" : r.subject().toLowerCase(Locale.ROOT);
+                sv.contents[i] = r.content();
+                sv.createdAt[i] = r.createdAt();
+            }
+            return sv;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        boolean subjectMatches(int row, String needleLower) {
+            return subjectsLower[row].contains(needleLower);
+        }
+    }
+}
@@ -5,25 +5,42 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sounditout.backend.domainLayer.entity.StudyPlan;
 import com.sounditout.backend.repositories.ReportEmbeddingRepository;
 import com.sounditout.backend.repositories.StudyPlanRepository;
+import com.sounditout.backend.repositories.VectorSearchMode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,29 +50,151 @@ public class StudyCoachService {
     private static final int RAG_CANDIDATES = 12;         // fetch more, then filter
     private static final int RAG_MAX = 6;                 // final context size
 
-    private final EmbeddingModel embeddingModel;
+    // Tag values of the ai.study_plan.memo counter
+    private static final String MEMO_HIT = "hit";
+    private static final String MEMO_MISS = "miss";
+    private static final String MEMO_SHARED = "shared";   // joined an identical in-flight generation
+
+    private final QueryEmbeddingCache queryEmbeddingCache;
     private final OpenAiChatModel chatModel;
     private final ReportEmbeddingRepository embeddingRepo;
+    private final StudentVectorIndex studentVectorIndex;
+    private final RagContextAssembler ragContextAssembler;
     private final StudyPlanRepository planRepo;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    // Vector + full-text retrieval fused with RRF (see ReportEmbeddingRepositoryCustom.hybridSearchTopK)
+    @Value("${ai.search.hybrid.enabled:true}")
+    private boolean hybridSearchEnabled;
+
+    // Used when the in-memory index ranks the vector leg and the legs are fused here
+    @Value("${ai.search.hybrid.candidates:50}")
+    private int hybridCandidates;
+
+    @Value("${ai.search.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    private final ConcurrentMap<String, CompletableFuture<StudyPlan>> inFlight = new ConcurrentHashMap<>();
+
+    /** System + user messages for one plan request. */
+    private record PlanPrompt(String system, String user) { }
+
+    /**
+     * Returns this week's stored plan for the same (normalized) goal when there is one,
+     * unless {@code regenerate} is set. Concurrent identical requests share one generation.
+     *
+     * Not transactional on purpose: retrieval and the final save each use their own short
+     * transaction, so no DB connection is held while the model is generating.
+     */
+    public StudyPlan generateWeeklyPlan(Long studentId, String goalPrompt, boolean regenerate) {
+        // ---------- 0) Memoized plan for this student/week/goal? ----------
+        LocalDate weekStart = currentWeekStart();
+        String goalHash = goalHash(goalPrompt);
+        if (!regenerate) {
+            Optional<StudyPlan> stored = findMemoizedPlan(studentId, weekStart, goalHash);
+            if (stored.isPresent()) return stored.get();
+        }
+
+        // Double-clicks: the second request waits for the first instead of paying for another completion
+        String flightKey = studentId + ":" + weekStart + ":" + goalHash;
+        CompletableFuture<StudyPlan> mine = new CompletableFuture<>();
+        CompletableFuture<StudyPlan> running = inFlight.putIfAbsent(flightKey, mine);
+        if (running != null) {
+            recordMemo(MEMO_SHARED);
+            return joinUnwrapped(running);
+        }
+        if (!regenerate) recordMemo(MEMO_MISS);
+
+        try {
+            // ---------- 1-2) Embed goal, retrieve RAG context, build prompt ----------
+            PlanPrompt prompt = buildPlanPrompt(studentId, goalPrompt);
+
+            // ---------- 3) Ask the model for STRICT JSON ----------
+            String content = callForJson(prompt.system(), prompt.user(), planOptions()); // one place to call/chat and get content as string
+
+            // ---------- 3b) Parse; if it fails, throw a clear 4xx so the FE can show a nice error ----------
+            JsonNode tasksNode = parseTasks(content);
+
+            // ---------- 4) Persist plan ----------
+            StudyPlan plan = savePlan(studentId, goalPrompt, goalHash, weekStart, tasksNode);
+            mine.complete(plan);
+            return plan;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    /**
+     * Same plan as {@link #generateWeeklyPlan}, but the reply is streamed: each task is handed
+     * to {@code onTask} as soon as the model has finished writing it. The plan is persisted
+     * once the stream completes. Blocks the calling thread until then.
+     * A memoized plan is replayed task by task.
+     */
+    public StudyPlan streamWeeklyPlan(Long studentId, String goalPrompt, boolean regenerate,
+                                      Consumer<JsonNode> onTask) {
+        LocalDate weekStart = currentWeekStart();
+        String goalHash = goalHash(goalPrompt);
+        if (!regenerate) {
+            Optional<StudyPlan> stored = findMemoizedPlan(studentId, weekStart, goalHash);
+            if (stored.isPresent()) {
+                stored.get().getTasks().forEach(onTask);
+                return stored.get();
+            }
+            recordMemo(MEMO_MISS);
+        }
+
+        PlanPrompt prompt = buildPlanPrompt(studentId, goalPrompt);
+        Prompt request = new Prompt(
+                List.of(new SystemMessage(prompt.system()), new UserMessage(prompt.user())), planOptions());
+
+        String content;
+        int streamed = 0;
+        // Closing the stream cancels the request if onTask throws (e.g. the client went away)
+        try (Stream<ChatResponse> chunks = chatModel.stream(request).toStream()) {
+            PlanTaskStreamParser parser = new PlanTaskStreamParser(objectMapper);
+            Iterator<ChatResponse> it = chunks.iterator();
+            while (it.hasNext()) {
+                ChatResponse chunk = it.next();
+                if (chunk.getResult() == null || chunk.getResult().getOutput() == null) continue;
+                for (JsonNode task : parser.feed(chunk.getResult().getOutput().getContent())) {
+                    onTask.accept(task);
+                    streamed++;
+                }
+            }
+            parser.close();
+            content = parser.fullText();
+        } catch (IOException e) {
+            throw new IllegalStateException("Model did not return valid JSON for study plan");
+        }
+
+        JsonNode tasksNode = parseTasks(content);
+        // Replies that weren't shaped as {"tasks": [...]} only become usable here
+        for (int i = streamed; i < tasksNode.size(); i++) {
+            onTask.accept(tasksNode.get(i));
+        }
+        return savePlan(studentId, goalPrompt, goalHash, weekStart, tasksNode);
+    }
 
-    @Transactional
-    public StudyPlan generateWeeklyPlan(Long studentId, String goalPrompt) {
+    private PlanPrompt buildPlanPrompt(Long studentId, String goalPrompt) {
         // ---------- 1) Embed goal ----------
-        List<float[]> vectors = embeddingModel.embed(List.of(goalPrompt));
-        String qLiteral = toVectorLiteral(vectors.get(0));
+        float[] qvec = queryEmbeddingCache.embed(goalPrompt);
 
         // ---------- 2) Retrieve RAG rows (with score) ----------
-        List<Object[]> raw = embeddingRepo.searchTopKWithScore(studentId, qLiteral, RAG_CANDIDATES, null);
+        List<Object[]> raw = retrieve(studentId, goalPrompt, qvec, RAG_CANDIDATES, null);
         List<Object[]> filtered = raw.stream()
-                .filter(r -> r[6] instanceof Number n && n.doubleValue() >= SIMILARITY_CUTOFF)
+                .filter(StudyCoachService::isRelevant)
                 .limit(RAG_MAX)
                 .toList();
 
-        boolean noRelevantContext = filtered.isEmpty();
-        String ctx = noRelevantContext ? "(no prior relevant context)" : buildContext(filtered);
+        // ---------- 3) Fit the best rows into the context token budget ----------
+        RagContextAssembler.Context assembled = ragContextAssembler.assemble(filtered);
+        boolean noRelevantContext = assembled.included() == 0;
+        String ctx = noRelevantContext ? "(no prior relevant context)" : assembled.text();
 
-        // ---------- 3) Ask the model for STRICT JSON ----------
         String sys = """
         You are a tutoring coach. Create a realistic one-week study plan.
         Use the student's past feedback (RAG context) ONLY if it is relevant.
@@ -77,16 +216,36 @@ public class StudyCoachService {
         %s
         """.formatted(goalPrompt, ctx);
 
-        // Tell OpenAI we want a JSON object back
-        var opts = OpenAiChatOptions.builder()
+        recordPromptTokens(sys, user, assembled);
+        return new PlanPrompt(sys, user);
+    }
+
+    /** Prompt size per plan request, counted locally (same BPE encoding as the model). */
+    private void recordPromptTokens(String sys, String user, RagContextAssembler.Context ctx) {
+        int tokens = ragContextAssembler.countTokens(sys) + ragContextAssembler.countTokens(user);
+        DistributionSummary.builder("ai.prompt.tokens")
+                .description("Prompt tokens per request (system + user)")
+                .baseUnit("tokens")
+                .tag("prompt", "study_plan")
+                .register(meterRegistry)
+                .record(tokens);
+        DistributionSummary.builder("ai.rag.context.tokens")
+                .description("Tokens of RAG context per request, after budgeting")
+                .baseUnit("tokens")
+                .tag("truncated", String.valueOf(ctx.truncated() > 0 || ctx.dropped() > 0))
+                .register(meterRegistry)
+                .record(ctx.tokens());
+    }
+
+    /** Tell OpenAI we want a JSON object back. */
+    private static OpenAiChatOptions planOptions() {
+        return OpenAiChatOptions.builder()
                 .withTemperature(0.3f)
                 .withResponseFormat(new OpenAiApi.ChatCompletionRequest.ResponseFormat(OpenAiApi.ChatCompletionRequest.ResponseFormat.Type.JSON_OBJECT)) // ✅ correct
                 .build();
+    }
 
-
-        String content = callForJson(sys, user, opts); // one place to call/chat and get content as string
-
-        // ---------- 3b) Parse; if it fails, throw a clear 4xx so the FE can show a nice error ----------
+    private JsonNode parseTasks(String content) {
         JsonNode root;
         try {
             root = objectMapper.readTree(content);     // <-- JSON parse
@@ -101,20 +260,61 @@ public class StudyCoachService {
             // Be strict: we expect an array for tasks
             throw new IllegalStateException("Model JSON did not contain a 'tasks' array");
         }
+        return tasksNode;
+    }
 
-        // ---------- 4) Persist plan ----------
-        LocalDate monday = LocalDate.now(ZoneOffset.UTC).with(DayOfWeek.MONDAY);
-
+    private StudyPlan savePlan(Long studentId, String goalPrompt, String goalHash,
+                               LocalDate weekStart, JsonNode tasksNode) {
         StudyPlan plan = StudyPlan.builder()
                 .studentId(studentId)
-                .weekStart(monday)
+                .weekStart(weekStart)
                 .goals(goalPrompt)
+                .goalHash(goalHash)
                 .tasks(tasksNode)              // <-- pass JsonNode, not String
                 .build();
 
         return planRepo.save(plan);
     }
 
+    // ---------- Plan memoization ----------
+
+    // Records hits only: a miss is counted by the caller once it is the one generating, so a
+    // request that then joins an in-flight generation counts as shared, not as miss + shared.
+    private Optional<StudyPlan> findMemoizedPlan(Long studentId, LocalDate weekStart, String goalHash) {
+        Optional<StudyPlan> stored =
+                planRepo.findFirstByStudentIdAndWeekStartAndGoalHashOrderByIdDesc(studentId, weekStart, goalHash);
+        if (stored.isPresent()) recordMemo(MEMO_HIT);
+        return stored;
+    }
+
+    private void recordMemo(String result) {
+        meterRegistry.counter("ai.study_plan.memo", "result", result).increment();
+    }
+
+    private static LocalDate currentWeekStart() {
+        return LocalDate.now(ZoneOffset.UTC).with(DayOfWeek.MONDAY);
+    }
+
+    /** SHA-256 (hex) of the goal, normalized like query embeddings (case and whitespace insensitive). */
+    static String goalHash(String goalPrompt) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha.digest(QueryEmbeddingCache.normalize(goalPrompt).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static StudyPlan joinUnwrapped(CompletableFuture<StudyPlan> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
     /** Tiny helper to call the chat model and return the raw content string. */
     private String callForJson(String sys, String user, OpenAiChatOptions opts) {
         ChatResponse reply = chatModel.call(
@@ -125,47 +325,92 @@ public class StudyCoachService {
 
 
 
-    /** Exposed for debugging/search endpoint, with optional subject filter. */
+    /**
+     * Exposed for debugging/search endpoint, with optional subject filter.
+     * A non-null mode skips hybrid/in-memory retrieval and runs that pgvector search strategy.
+     */
     @Transactional(readOnly = true)
-    public List<Map<String, Object>> searchTopK(Long studentId, String query, int k, String subjectFilter) {
-        List<float[]> vectors = embeddingModel.embed(List.of(query));
-        String literal = toVectorLiteral(vectors.get(0));
+    public List<Map<String, Object>> searchTopK(Long studentId, String query, int k, String subjectFilter,
+                                                VectorSearchMode mode) {
+        float[] qvec = queryEmbeddingCache.embed(query);
 
-        List<Object[]> rows = embeddingRepo.searchTopKWithScore(
-                studentId, literal, Math.max(k, RAG_CANDIDATES), subjectFilter
-        );
+        int candidates = Math.max(k, RAG_CANDIDATES);
+        List<Object[]> rows = mode != null
+                ? embeddingRepo.searchTopKWithScore(studentId, qvec, candidates, subjectFilter, mode)
+                : retrieve(studentId, query, qvec, candidates, subjectFilter);
+
+        return rows.stream().map(r -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", r[0]);
+            row.put("student_id", r[1]);
+            row.put("report_id", r[2]);
+            row.put("subject", r[3]);
+            row.put("content", r[4]);
+            row.put("created_at", r[5]);
+            row.put("score", r[6]);
+            if (r.length > 8) {            // hybrid rows
+                row.put("rrf", r[7]);
+                row.put("lexical_rank", r[8]);
+            }
+            return row;
+        }).limit(k).collect(Collectors.toList());
+    }
+
+    /**
+     * Hybrid (vector + full-text, RRF) when enabled, with the vector leg from the in-process
+     * index when that is enabled too; otherwise the in-process index, otherwise pgvector.
+     * The first seven columns have the same shape either way.
+     */
+    private List<Object[]> retrieve(Long studentId, String queryText, float[] qvec, int k, String subjectFilter) {
+        boolean hybrid = hybridSearchEnabled && queryText != null && !queryText.isBlank();
+        if (hybrid && studentVectorIndex.isEnabled()) {
+            // Only the full-text leg goes to Postgres
+            int candidates = Math.max(k, hybridCandidates);
+            return fuseRrf(studentVectorIndex.search(studentId, qvec, candidates, subjectFilter),
+                    embeddingRepo.lexicalSearchTopK(studentId, queryText, qvec, candidates, subjectFilter),
+                    rrfK, k);
+        }
+        if (hybrid) {
+            return embeddingRepo.hybridSearchTopK(studentId, queryText, qvec, k, subjectFilter);
+        }
+        if (studentVectorIndex.isEnabled()) {
+            return studentVectorIndex.search(studentId, qvec, k, subjectFilter);
+        }
+        return embeddingRepo.searchTopKWithScore(studentId, qvec, k, subjectFilter);
+    }
+
+    /**
+     * Reciprocal-rank fusion of a vector and a lexical ranking, as hybridSearchTopK does in SQL:
+     * rows [.., score, rrf, lexical_rank] ordered by rrf, then id.
+     */
+    static List<Object[]> fuseRrf(List<Object[]> vector, List<Object[]> lexical, int rrfK, int k) {
+        Map<Long, Object[]> fused = new LinkedHashMap<>();
+        for (int i = 0; i < vector.size(); i++) {
+            Object[] r = vector.get(i);
+            fused.put((Long) r[0], new Object[] { r[0], r[1], r[2], r[3], r[4], r[5], r[6], 1.0 / (rrfK + i + 1), null });
+        }
+        for (int i = 0; i < lexical.size(); i++) {
+            Object[] r = lexical.get(i);
+            long rank = i + 1;
+            double rrf = 1.0 / (rrfK + rank);
+            Object[] row = fused.get((Long) r[0]);
+            if (row == null) {
+                fused.put((Long) r[0], new Object[] { r[0], r[1], r[2], r[3], r[4], r[5], r[6], rrf, rank });
+            } else {
+                row[7] = (double) row[7] + rrf;
+                row[8] = rank;
+            }
+        }
+        return fused.values().stream()
+                .sorted(Comparator.comparingDouble((Object[] r) -> (double) r[7]).reversed()
+                        .thenComparingLong(r -> (Long) r[0]))
+                .limit(k)
+                .toList();
+    }
 
-        return rows.stream().map(r -> Map.of(
-                "id", r[0],
-                "student_id", r[1],
-                "report_id", r[2],
-                "subject", r[3],
-                "content", r[4],
-                "created_at", r[5],
-                "score", r[6]
-        )).limit(k).collect(Collectors.toList());
-    }
-
-    private static String buildContext(List<Object[]> rows) {
-        StringBuilder ctx = new StringBuilder();
-        for (Object[] r : rows) {
-            String subject = r[3] != null ? r[3].toString() : "";
-            String content = r[4] != null ? r[4].toString() : "";
-            ctx.append("Subject: ").append(subject).append("\n");
-            ctx.append("Content: ").append(content).append("\n---\n");
-        }
-        return ctx.toString();
-    }
-
-    /** Convert float[] to pgvector literal. */
-    private static String toVectorLiteral(float[] v) {
-        StringBuilder sb = new StringBuilder(v.length * 10);
-        sb.append('[');
-        for (int i = 0; i < v.length; i++) {
-            if (i > 0) sb.append(',');
-            sb.append(String.format(Locale.ROOT, "%.6f", v[i]));
-        }
-        sb.append(']');
-        return sb.toString();
+    /** Similar enough, or (hybrid) an exact-term hit from the full-text leg. */
+    private static boolean isRelevant(Object[] r) {
+        if (r.length > 8 && r[8] != null) return true;
+        return r[6] instanceof Number n && n.doubleValue() >= SIMILARITY_CUTOFF;
     }
 }
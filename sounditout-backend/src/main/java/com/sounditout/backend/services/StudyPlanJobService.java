@@ -0,0 +1,97 @@
+package com.sounditout.backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sounditout.backend.domainLayer.entity.StudyPlan;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Study-plan generation as a background job: submit returns right away, the plan is
+ * generated on {@code aiExecutor} and clients poll (or long-poll) for the result.
+ *
+ * Jobs are kept in memory for {@link #RETENTION} after submission; a job id is only
+ * meaningful on the instance that accepted it.
+ */
+@Slf4j
+@Service
+public class StudyPlanJobService {
+
+    static final Duration RETENTION = Duration.ofHours(1);
+
+    private final StudyCoachService studyCoachService;
+    private final TaskExecutor aiExecutor;
+
+    private final Cache<String, PlanJob> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(RETENTION)
+            .maximumSize(10_000)
+            .build();
+
+    public StudyPlanJobService(StudyCoachService studyCoachService,
+                               @Qualifier("aiExecutor") TaskExecutor aiExecutor) {
+        this.studyCoachService = studyCoachService;
+        this.aiExecutor = aiExecutor;
+    }
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    /** One submitted plan request and its eventual result. */
+    public record PlanJob(String id, Long studentId, OffsetDateTime submittedAt,
+                          CompletableFuture<StudyPlan> result) {
+
+        public Status status() {
+            if (!result.isDone()) return Status.RUNNING;
+            return result.isCompletedExceptionally() ? Status.FAILED : Status.COMPLETED;
+        }
+
+        /** The plan once COMPLETED, otherwise null. */
+        public StudyPlan plan() {
+            return status() == Status.COMPLETED ? result.join() : null;
+        }
+
+        /** The failure message once FAILED, otherwise null. */
+        public String error() {
+            if (status() != Status.FAILED) return null;
+            try {
+                result.join();
+                return null;
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                return cause.getMessage() != null ? cause.getMessage() : "Plan generation failed";
+            }
+        }
+    }
+
+    /**
+     * Queue plan generation for a student. Throws
+     * {@link java.util.concurrent.RejectedExecutionException} when the AI pool is saturated.
+     */
+    public PlanJob submit(Long studentId, String goal, boolean regenerate) {
+        String id = UUID.randomUUID().toString();
+        CompletableFuture<StudyPlan> result = CompletableFuture.supplyAsync(
+                () -> studyCoachService.generateWeeklyPlan(studentId, goal, regenerate), aiExecutor);
+
+        PlanJob job = new PlanJob(id, studentId, OffsetDateTime.now(ZoneOffset.UTC), result);
+        jobs.put(id, job);
+        result.whenComplete((plan, ex) -> {
+            if (ex != null) log.warn("Study plan job {} for student {} failed: {}", id, studentId, ex.toString());
+        });
+        return job;
+    }
+
+    /** The job, if it exists and belongs to this student. */
+    public Optional<PlanJob> find(String jobId, Long studentId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId))
+                .filter(job -> job.studentId().equals(studentId));
+    }
+}
@@ -0,0 +1,60 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.domainLayer.entity.StudyPlan;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Runs a streamed plan generation on the AI pool and forwards it to an SSE emitter.
+ *
+ * Events: {@code task} (one per task, as soon as the model has written it),
+ * then {@code plan} (the persisted StudyPlan) or {@code error} ({"error": "..."}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudyPlanStreamService {
+
+    private final StudyCoachService studyCoachService;
+
+    @Async("aiExecutor")
+    public void streamWeeklyPlan(Long studentId, String goal, boolean regenerate, SseEmitter emitter) {
+        try {
+            StudyPlan plan = studyCoachService.streamWeeklyPlan(studentId, goal, regenerate,
+                    task -> send(emitter, "task", task));
+            send(emitter, "plan", plan);
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            // Client went away; nothing left to tell it
+            log.debug("Study plan stream for student {} closed by client: {}", studentId, e.getMessage());
+            emitter.completeWithError(e.getCause());
+        } catch (Exception e) {
+            log.warn("Study plan stream for student {} failed: {}", studentId, e.toString());
+            try {
+                send(emitter, "error", Map.of("error", e.getMessage() == null ? "Plan generation failed" : e.getMessage()));
+                emitter.complete();
+            } catch (UncheckedIOException ignored) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    // Both mean the client can't be reached any more: an I/O error, or an emitter that was
+    // already completed (e.g. by the async request timeout) and rejects further sends
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalStateException e) {
+            throw new UncheckedIOException(new IOException("SSE emitter already completed", e));
+        }
+    }
+}
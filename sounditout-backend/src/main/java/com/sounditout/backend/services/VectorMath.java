@@ -0,0 +1,45 @@
+package com.sounditout.backend.services;
+
+/**
+ * Dot-product kernel for the in-memory vector index.
+ * Uses the JDK Vector API when the app was built with {@code -Psimd} and the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, and a scalar loop otherwise.
+ */
+interface VectorMath {
+
+    String SIMD_CLASS = "com.sounditout.backend.services.SimdVectorMath";
+
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    static VectorMath best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            // Loaded by name: the class is only compiled in the simd profile, and touching it
+            // without the module fails to link
+            try {
+                return (VectorMath) Class.forName(SIMD_CLASS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Built without -Psimd
+            }
+        }
+        return new ScalarVectorMath();
+    }
+
+    final class ScalarVectorMath implements VectorMath {
+        @Override
+        public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+            // Four accumulators so the JIT can overlap the multiply-adds
+            float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            int i = 0;
+            for (; i + 3 < length; i += 4) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+                s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+                s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+                s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+            }
+            for (; i < length; i++) {
+                s0 += a[aOffset + i] * b[bOffset + i];
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+    }
+}
@@ -1,28 +1,138 @@
 package com.sounditout.backend.services;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sounditout.backend.domainLayer.entity.YouTubeSearchCacheEntry;
+import com.sounditout.backend.repositories.YouTubeSearchCacheRepository;
 import com.sounditout.backend.weblayer.dtos.YouTubeVideo;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * YouTube search with a two-tier cache in front of the API.
+ *
+ * L1 is an async Caffeine cache: concurrent misses for the same key share one load, and after
+ * {@code youtube.cache.refresh-after-write} the next read still gets the cached list while a
+ * background refresh runs. L2 is the yt_search_cache table (key md5(normalizedTopic):max), so
+ * results survive restarts: an L1 miss reads L2 before calling the API, every API result is
+ * written to L2, and the most requested L2 entries are put back into L1 on startup.
+ * Both tiers drop entries after {@code youtube.cache.expire-after-write}; a result taken from L2
+ * keeps its row's expires_at in L1 rather than starting a new term. Empty results are not
+ * cached. L2 failures are logged and never fail a search.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class YouTubeSearchService {
 
+    // Partial response: skips etags, kind, pageInfo and the other thumbnail sizes.
+    // Only legal query characters, so it is appended as-is.
+    private static final String SEARCH_FIELDS =
+            "items(id/videoId,snippet(title,channelTitle,description,publishedAt,thumbnails(high/url,medium/url)))";
+
+    private static final TypeReference<List<YouTubeVideo>> VIDEO_LIST = new TypeReference<>() { };
+
     @Value("${youtube.api-key}")           // <-- uses youtube.api-key
     private String apiKey;
 
+    @Value("${youtube.cache.l2.warm-up-size:200}")
+    private int warmUpSize;
+
     private final RestClient restClient = RestClient.builder().build();
 
+    private final YouTubeSearchCacheRepository l2;
+    private final ObjectMapper objectMapper;
+    private final Duration expireAfterWrite;
+    private final AsyncLoadingCache<SearchKey, CachedSearch> cache;
+    private final Counter coalesced;
+    private final Counter l2Hits;
+    private final Timer refreshTimer;
+
+    public YouTubeSearchService(YouTubeSearchCacheRepository l2,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Qualifier("youtubeExecutor") TaskExecutor youtubeExecutor,
+                                @Value("${youtube.cache.max-size:2000}") long maxSize,
+                                @Value("${youtube.cache.refresh-after-write:6h}") Duration refreshAfterWrite,
+                                @Value("${youtube.cache.expire-after-write:7d}") Duration expireAfterWrite) {
+        this.l2 = l2;
+        this.objectMapper = objectMapper;
+        this.expireAfterWrite = expireAfterWrite;
+        this.coalesced = meterRegistry.counter("youtube.search.coalesced");
+        this.l2Hits = meterRegistry.counter("youtube.search.l2.hits");
+        this.refreshTimer = meterRegistry.timer("youtube.search.refresh");
+        // Loads run on their own small pool: they block on HTTP/JDBC, which the common ForkJoin pool shouldn't
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfterWrite)
+                .expireAfter(new UntilExpiresAt())
+                .executor(youtubeExecutor)
+                .recordStats()
+                .buildAsync(new SearchLoader());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "ytSearch");
+    }
+
+    /** L1 key; {@link #storageKey()} is the L2 primary key. */
+    private record SearchKey(String topic, int max) {
+        String storageKey() {
+            return DigestUtils.md5DigestAsHex(topic.getBytes(StandardCharsets.UTF_8)) + ":" + max;
+        }
+    }
+
+    /** An L1 value: the videos and when the result expires (the L2 row's expires_at). */
+    private record CachedSearch(List<YouTubeVideo> videos, OffsetDateTime expiresAt) { }
+
+    /** Keeps each entry until its expiresAt, also when a refresh replaces it. */
+    private static final class UntilExpiresAt implements Expiry<SearchKey, CachedSearch> {
+        @Override
+        public long expireAfterCreate(SearchKey key, CachedSearch value, long currentTime) {
+            long nanos = Duration.between(OffsetDateTime.now(ZoneOffset.UTC), value.expiresAt()).toNanos();
+            return Math.max(nanos, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(SearchKey key, CachedSearch value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(SearchKey key, CachedSearch value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     /** Normalize a topic to improve caching hit rate (case/punctuation insensitive). */
     private static String normalizeTopic(String topic) {
         if (topic == null) return "";
@@ -32,21 +142,7 @@ public class YouTubeSearchService {
                 .trim();
     }
 
-    // helper for SpEL key
-    public static String norm(String s) {
-        return normalizeTopic(s);
-    }
-
-    /**
-     * Cached YouTube search.
-     * Cache key: md5(normalizedTopic) + ":" + max.
-     * TTL/size is controlled in your Caffeine cache config.
-     */
-    @Cacheable(
-            value = "ytSearch",
-            key = "T(org.springframework.util.DigestUtils).md5DigestAsHex(T(com.sounditout.backend.services.YouTubeSearchService).norm(#topic).bytes) + ':' + #max",
-            unless = "#result == null || #result.isEmpty()"
-    )
+    /** Cached YouTube search (see class comment for the caching rules). */
     public List<YouTubeVideo> searchVideos(String topic, int max) {
         String normalized = normalizeTopic(topic);
         if (normalized.isBlank() || apiKey == null || apiKey.isBlank()) {
@@ -54,78 +150,232 @@ public class YouTubeSearchService {
         }
 
         int maxResults = Math.min(Math.max(max, 1), 10); // clamp 1..10
-        String q = URLEncoder.encode(normalized, StandardCharsets.UTF_8);
+        SearchKey key = new SearchKey(normalized, maxResults);
 
-        String url = "https://www.googleapis.com/youtube/v3/search"
-                + "?part=snippet&type=video&maxResults=" + maxResults
-                + "&q=" + q
-                + "&key=" + apiKey;
+        CompletableFuture<CachedSearch> inFlight = cache.getIfPresent(key);
+        if (inFlight != null && !inFlight.isDone()) {
+            coalesced.increment(); // joins a load another request already started
+        }
 
-        // Fetch as Map<String, Object> safely
-        ParameterizedTypeReference<Map<String, Object>> typeRef =
-                new ParameterizedTypeReference<>() {};
-        Map<String, Object> payload = restClient.get()
-                .uri(url)
-                .retrieve()
-                .body(typeRef);
+        try {
+            CachedSearch cached = cache.get(key).join();
+            return cached == null ? List.of() : cached.videos();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
 
-        if (payload == null) return List.of();
+    // ---------- L2 (Postgres) ----------
 
-        Object itemsObj = payload.get("items");
-        if (!(itemsObj instanceof List<?> rawItems)) {
-            return List.of();
+    /** Put the most requested L2 entries back into L1 and clear out expired rows. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            l2.deleteExpired(now);
+            int warmed = 0;
+            for (YouTubeSearchCacheEntry e : l2.findByExpiresAtAfterOrderByHitsDesc(now, Limit.of(warmUpSize))) {
+                List<YouTubeVideo> videos = objectMapper.convertValue(e.getVideos(), VIDEO_LIST);
+                cache.put(new SearchKey(e.getTopic(), e.getMaxResults()),
+                        CompletableFuture.completedFuture(new CachedSearch(videos, e.getExpiresAt())));
+                warmed++;
+            }
+            log.info("Warmed {} YouTube search result(s) from yt_search_cache", warmed);
+        } catch (Exception e) {
+            log.warn("Could not warm ytSearch from yt_search_cache: {}", e.toString());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${youtube.cache.l2.cleanup-interval:PT1H}",
+               initialDelayString = "${youtube.cache.l2.cleanup-interval:PT1H}")
+    public void deleteExpired() {
+        try {
+            int deleted = l2.deleteExpired(OffsetDateTime.now(ZoneOffset.UTC));
+            if (deleted > 0) log.debug("Deleted {} expired yt_search_cache row(s)", deleted);
+        } catch (Exception e) {
+            log.warn("yt_search_cache cleanup failed: {}", e.toString());
+        }
+    }
+
+    private CachedSearch readL2(SearchKey key) {
+        try {
+            Optional<YouTubeSearchCacheEntry> entry =
+                    l2.findByCacheKeyAndExpiresAtAfter(key.storageKey(), OffsetDateTime.now(ZoneOffset.UTC));
+            if (entry.isEmpty()) return null;
+            l2.recordHit(key.storageKey());
+            l2Hits.increment();
+            return new CachedSearch(objectMapper.convertValue(entry.get().getVideos(), VIDEO_LIST),
+                    entry.get().getExpiresAt());
+        } catch (Exception e) {
+            log.warn("yt_search_cache read failed for {}: {}", key.storageKey(), e.toString());
+            return null;
+        }
+    }
+
+    private void writeL2(SearchKey key, CachedSearch result, OffsetDateTime fetchedAt) {
+        try {
+            l2.upsert(key.storageKey(), key.topic(), key.max(), objectMapper.writeValueAsString(result.videos()),
+                    fetchedAt, result.expiresAt());
+        } catch (Exception e) {
+            log.warn("yt_search_cache write failed for {}: {}", key.storageKey(), e.toString());
+        }
+    }
+
+    /** L1 loads try L2 first; refreshes always go to the API (L2 is at least as old as L1). */
+    private final class SearchLoader implements CacheLoader<SearchKey, CachedSearch> {
+
+        @Override
+        public CachedSearch load(SearchKey key) {
+            CachedSearch stored = readL2(key);
+            return stored != null ? stored : fetch(key);
+        }
+
+        @Override
+        public CachedSearch reload(SearchKey key, CachedSearch oldValue) {
+            return refreshTimer.record(() -> fetch(key));
         }
 
-        List<YouTubeVideo> out = new ArrayList<>(rawItems.size());
+        // null = don't cache (empty results); a failed refresh keeps serving the old value
+        private CachedSearch fetch(SearchKey key) {
+            List<YouTubeVideo> videos = callApi(key.topic(), key.max());
+            if (videos.isEmpty()) return null;
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            CachedSearch result = new CachedSearch(videos, now.plus(expireAfterWrite));
+            writeL2(key, result, now);
+            return result;
+        }
+    }
+
+    private List<YouTubeVideo> callApi(String normalized, int maxResults) {
+        // Jackson reads the response stream straight into the records below; no Map tree
+        SearchResponse payload = restClient.get()
+                .uri(searchUrl(normalized, maxResults, true))
+                .retrieve()
+                .body(SearchResponse.class);
 
-        for (Object o : rawItems) {
-            if (!(o instanceof Map<?, ?> itemAny)) continue;
+        if (payload == null || payload.items() == null) return List.of();
 
+        List<YouTubeVideo> out = new ArrayList<>(payload.items().size());
+
+        for (SearchItem item : payload.items()) {
             // id
-            Object idObj = itemAny.get("id");
-            if (!(idObj instanceof Map<?, ?> idAny)) continue;
-            Object videoIdObj = idAny.get("videoId");
-            if (!(videoIdObj instanceof String videoId) || videoId.isBlank()) continue;
+            String videoId = item.id() == null ? null : item.id().videoId();
+            if (videoId == null || videoId.isBlank()) continue;
 
             // snippet
-            Object snObj = itemAny.get("snippet");
-            if (!(snObj instanceof Map<?, ?> snAny)) continue;
+            Snippet sn = item.snippet();
+            if (sn == null) continue;
 
-            String title         = safeString(snAny.get("title"));
-            String channelTitle  = safeString(snAny.get("channelTitle"));
-            String description   = safeString(snAny.get("description"));
-            String publishedAt   = safeString(snAny.get("publishedAt"));
-            String urlVideo      = "https://www.youtube.com/watch?v=" + videoId;
+            String urlVideo = "https://www.youtube.com/watch?v=" + videoId;
 
+            // prefer "high", fallback to "medium"
             String thumbnailUrl = null;
-            Object thumbsObj = snAny.get("thumbnails");
-            if (thumbsObj instanceof Map<?, ?> thumbsAny) {
-                // prefer "high", fallback to "medium"
-                thumbnailUrl = extractThumbUrl(thumbsAny, "high");
+            if (sn.thumbnails() != null) {
+                thumbnailUrl = thumbUrl(sn.thumbnails().high());
                 if (thumbnailUrl == null) {
-                    thumbnailUrl = extractThumbUrl(thumbsAny, "medium");
+                    thumbnailUrl = thumbUrl(sn.thumbnails().medium());
                 }
             }
 
             out.add(new YouTubeVideo(
-                    title, urlVideo, channelTitle, description, publishedAt, thumbnailUrl
+                    nullToEmpty(sn.title()), urlVideo, nullToEmpty(sn.channelTitle()),
+                    nullToEmpty(sn.description()), nullToEmpty(sn.publishedAt()), thumbnailUrl
             ));
         }
 
         return out;
     }
 
-    private static String safeString(Object v) {
-        return v instanceof String s ? s : "";
+    private String searchUrl(String normalized, int maxResults, boolean partial) {
+        return "https://www.googleapis.com/youtube/v3/search"
+                + "?part=snippet&type=video&maxResults=" + maxResults
+                + "&q=" + URLEncoder.encode(normalized, StandardCharsets.UTF_8)
+                + (partial ? "&fields=" + SEARCH_FIELDS : "")
+                + "&key=" + apiKey;
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
     }
 
-    @SuppressWarnings("unchecked")
-    private static String extractThumbUrl(Map<?, ?> thumbsAny, String key) {
-        Object tier = thumbsAny.get(key);
-        if (tier instanceof Map<?, ?> tierAny) {
-            Object url = tierAny.get("url");
-            if (url instanceof String s && !s.isBlank()) return s;
+    private static String thumbUrl(Thumbnail t) {
+        return t != null && t.url() != null && !t.url().isBlank() ? t.url() : null;
+    }
+
+    // ---------- Partial-response benchmark ----------
+
+    public record ResponseResult(String response, int bytes, int videos, double parseP50Micros,
+                                 double parseP99Micros) { }
+
+    /**
+     * Fetches one search both without and with {@code fields=} (two API calls, 100 quota units
+     * each, not cached) and parses each body {@code iterations} times into the response records,
+     * after a warm-up parse.
+     */
+    public Map<String, Object> benchmarkResponse(String topic, int max, int iterations) throws IOException {
+        String normalized = normalizeTopic(topic);
+        if (normalized.isBlank() || apiKey == null || apiKey.isBlank()) {
+            throw new IllegalStateException("Needs a topic and youtube.api-key");
+        }
+        int maxResults = Math.min(Math.max(max, 1), 10);
+
+        List<ResponseResult> results = new ArrayList<>(2);
+        for (boolean partial : new boolean[] { false, true }) {
+            byte[] body = restClient.get()
+                    .uri(searchUrl(normalized, maxResults, partial))
+                    .retrieve()
+                    .body(byte[].class);
+            if (body == null) body = new byte[0];
+
+            SearchResponse parsed = objectMapper.readValue(body, SearchResponse.class); // warm-up
+            long[] nanos = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                objectMapper.readValue(body, SearchResponse.class);
+                nanos[i] = System.nanoTime() - t0;
+            }
+            Arrays.sort(nanos);
+            results.add(new ResponseResult(
+                    partial ? "fields" : "full",
+                    body.length,
+                    parsed.items() == null ? 0 : parsed.items().size(),
+                    percentileMicros(nanos, 0.50),
+                    percentileMicros(nanos, 0.99)));
         }
-        return null;
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("topic", normalized);
+        out.put("maxResults", maxResults);
+        out.put("iterations", iterations);
+        out.put("results", results);
+        return out;
     }
+
+    private static double percentileMicros(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) return 0;
+        int idx = (int) Math.ceil(p * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(idx, 0)] / 1_000.0;
+    }
+
+    // ---------- Search response (only the fields requested via SEARCH_FIELDS) ----------
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record SearchResponse(List<SearchItem> items) { }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record SearchItem(VideoId id, Snippet snippet) { }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record VideoId(String videoId) { }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Snippet(String title, String channelTitle, String description, String publishedAt,
+                           Thumbnails thumbnails) { }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Thumbnails(Thumbnail high, Thumbnail medium) { }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Thumbnail(String url) { }
 }
@@ -1,7 +1,15 @@
 package com.sounditout.backend.weblayer.controllers;
 
+import com.sounditout.backend.repositories.EmbeddingStorage;
+import com.sounditout.backend.repositories.EmbeddingStorageFormat;
 import com.sounditout.backend.repositories.ReportEmbeddingRepository;
+import com.sounditout.backend.repositories.VectorSearchMode;
 import com.sounditout.backend.services.ProgressReportService;
+import com.sounditout.backend.services.ReembedJobService;
+import com.sounditout.backend.services.SearchBenchmarkService;
+import com.sounditout.backend.services.StudentVectorIndex;
+import com.sounditout.backend.weblayer.dtos.ReembedJobResponse;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +17,10 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -20,8 +32,12 @@ public class AdminAiMaintenanceController {
 
     private final ProgressReportService progressReportService;
     private final ReportEmbeddingRepository embeddingRepo;
+    private final ReembedJobService reembedJobService;
+    private final SearchBenchmarkService searchBenchmarkService;
+    private final StudentVectorIndex studentVectorIndex;
+    private final EmbeddingStorage embeddingStorage;
 
-    /** Rebuild embeddings for all reports of a student (keeps existing rows). */
+    /** Rebuild embeddings for all reports of a student (unchanged reports are skipped). */
     @PostMapping("/reindex")
     public ResponseEntity<?> reindex(@RequestParam @Min(1) Long studentId) {
         int count = progressReportService.reindexStudentReports(studentId);
@@ -36,6 +52,7 @@ public class AdminAiMaintenanceController {
     public ResponseEntity<?> purgeAndReindex(@RequestParam @Min(1) Long studentId) {
         // You can implement a delete method per student; see repo snippet below.
         int deleted = embeddingRepo.deleteAllForStudent(studentId);
+        studentVectorIndex.invalidate(studentId);
         int reindexed = progressReportService.reindexStudentReports(studentId);
         return ResponseEntity.ok(Map.of(
                 "studentId", studentId,
@@ -43,4 +60,139 @@ public class AdminAiMaintenanceController {
                 "reindexed", reindexed
         ));
     }
+
+    // ---------- Global re-embedding job ----------
+
+    /**
+     * Re-embed every report of every student in the background.
+     * force=true (default) ignores stored content hashes, which is what a model change needs.
+     */
+    @PostMapping("/reembed-jobs")
+    public ResponseEntity<?> startReembedJob(@RequestParam(defaultValue = "true") boolean force) {
+        return reembedJobService.start(force)
+                .<ResponseEntity<?>>map(job -> ResponseEntity
+                        .accepted()
+                        .location(URI.create("/api/admin/ai/reembed-jobs/" + job.getId()))
+                        .body(ReembedJobResponse.of(job, null)))
+                .orElseGet(() -> ResponseEntity.status(409)
+                        .body(Map.of("error", "A re-embedding job is already running")));
+    }
+
+    @GetMapping("/reembed-jobs")
+    public ResponseEntity<List<ReembedJobResponse>> listReembedJobs() {
+        return ResponseEntity.ok(reembedJobService.recentJobs().stream()
+                .map(p -> ReembedJobResponse.of(p.job(), p.etaSeconds()))
+                .toList());
+    }
+
+    @GetMapping("/reembed-jobs/{jobId}")
+    public ResponseEntity<ReembedJobResponse> reembedJobStatus(@PathVariable Long jobId) {
+        return reembedJobService.status(jobId)
+                .map(p -> ReembedJobResponse.of(p.job(), p.etaSeconds()))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** Stops the job after its current page; progress up to the checkpoint is kept. */
+    @PostMapping("/reembed-jobs/{jobId}/cancel")
+    public ResponseEntity<?> cancelReembedJob(@PathVariable Long jobId) {
+        if (!reembedJobService.cancel(jobId)) {
+            return ResponseEntity.status(409).body(Map.of("error", "Job is not running on this instance"));
+        }
+        return ResponseEntity.accepted().body(Map.of("jobId", jobId, "cancelRequested", true));
+    }
+
+    // ---------- Search benchmark ----------
+
+    /**
+     * Recall@k (vs. exact scan) and p50/p99 latency per search mode, measured on the live table
+     * with randomly sampled stored embeddings as queries. BINARY is the Hamming prefilter +
+     * exact re-rank; tune ai.search.binary.rerank-factor against its recall here.
+     */
+    @GetMapping("/search-benchmark")
+    public ResponseEntity<?> searchBenchmark(
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int samples,
+            @RequestParam(defaultValue = "6") @Min(1) @Max(100) int k,
+            @RequestParam(defaultValue = "EXACT,HNSW,BINARY") List<VectorSearchMode> modes
+    ) {
+        return ResponseEntity.ok(searchBenchmarkService.run(samples, k, modes));
+    }
+
+    /**
+     * Recall@k (vs. the stored format) and size per storage format, e.g.
+     * {@code formats=vector(1536),halfvec(1536),halfvec(512)}. Defaults to vector and halfvec at
+     * the stored size and at 1024/768/512/256 dimensions.
+     */
+    @GetMapping("/search-benchmark/storage")
+    public ResponseEntity<?> storageBenchmark(
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int samples,
+            @RequestParam(defaultValue = "6") @Min(1) @Max(100) int k,
+            @RequestParam(required = false) List<String> formats
+    ) {
+        try {
+            List<EmbeddingStorageFormat> candidates = formats == null || formats.isEmpty()
+                    ? searchBenchmarkService.defaultStorageCandidates()
+                    : formats.stream().map(f -> EmbeddingStorageFormat.parse(f.toLowerCase(Locale.ROOT))).toList();
+            return ResponseEntity.ok(searchBenchmarkService.runStorage(samples, k, candidates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Encode time and size, bind round trip and exact search latency per vector codec: the old
+     * String.format literal vs. PgVector (text, and binary when binaryTransferEnable is set).
+     */
+    @GetMapping("/search-benchmark/codec")
+    public ResponseEntity<?> codecBenchmark(
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int samples,
+            @RequestParam(defaultValue = "6") @Min(1) @Max(100) int k
+    ) {
+        return ResponseEntity.ok(searchBenchmarkService.runCodec(samples, k));
+    }
+
+    // ---------- Embedding storage format ----------
+
+    /** Current column type, configured target, and table/index sizes. */
+    @GetMapping("/embedding-storage")
+    public ResponseEntity<?> embeddingStorage() {
+        return ResponseEntity.ok(embeddingStorage.stats());
+    }
+
+    /**
+     * Convert report_embedding.embedding in place (default: the configured
+     * {@code ai.embedding.storage.type} / {@code ai.embedding.dimensions}) and rebuild the HNSW index.
+     * Locks the table for the rewrite. Vectors are cut to their first n dimensions, which is only
+     * meaningful for text-embedding-3 models: 409 while any row was embedded by another (or an
+     * unknown) model, until a re-embedding job has rewritten them.
+     */
+    @PostMapping("/embedding-storage")
+    public ResponseEntity<?> convertEmbeddingStorage(
+            @RequestParam(required = false) EmbeddingStorageFormat.Type type,
+            @RequestParam(required = false) @Min(1) @Max(4000) Integer dimensions
+    ) {
+        EmbeddingStorageFormat before = embeddingStorage.current();
+        EmbeddingStorageFormat configured = embeddingStorage.configured();
+        EmbeddingStorageFormat target = new EmbeddingStorageFormat(
+                type != null ? type : configured.type(),
+                dimensions != null ? dimensions : configured.dimensions());
+        if (target.dimensions() > before.dimensions()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Stored vectors have " + before.dimensions()
+                    + " dimensions; more than that needs a re-embedding job with the new model settings"));
+        }
+
+        EmbeddingStorageFormat after;
+        try {
+            after = embeddingStorage.convert(target);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+        studentVectorIndex.invalidateAll();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("before", before.sqlType());
+        body.put("after", after.sqlType());
+        body.putAll(embeddingStorage.stats());
+        return ResponseEntity.ok(body);
+    }
 }
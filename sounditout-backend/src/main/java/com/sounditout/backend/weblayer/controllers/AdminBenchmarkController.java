@@ -0,0 +1,58 @@
+package com.sounditout.backend.weblayer.controllers;
+
+import com.sounditout.backend.services.ReadPathBenchmarkService;
+import com.sounditout.backend.services.YouTubeSearchService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/benchmarks")
+@RequiredArgsConstructor
+@Validated
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminBenchmarkController {
+
+    private final ReadPathBenchmarkService readPathBenchmarkService;
+    private final YouTubeSearchService youTubeSearchService;
+
+    /**
+     * Rows/sec and bytes allocated per row for entity vs DTO-projection reads of the
+     * report and student list pages, measured against the live database.
+     */
+    @GetMapping("/read-path")
+    public ResponseEntity<?> readPath(
+            @RequestParam @Min(1) Long studentId,
+            @RequestParam(defaultValue = "500") @Min(1) @Max(5000) int limit,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int iterations
+    ) {
+        return ResponseEntity.ok(readPathBenchmarkService.run(studentId, limit, iterations));
+    }
+
+    /**
+     * Body size and parse time of one YouTube search, full response vs. the {@code fields=}
+     * partial response the app requests. Makes two uncached API calls.
+     */
+    @GetMapping("/youtube-response")
+    public ResponseEntity<?> youtubeResponse(
+            @RequestParam(defaultValue = "phonics short vowels") String topic,
+            @RequestParam(defaultValue = "6") @Min(1) @Max(10) int max,
+            @RequestParam(defaultValue = "200") @Min(1) @Max(10000) int iterations
+    ) throws IOException {
+        try {
+            return ResponseEntity.ok(youTubeSearchService.benchmarkResponse(topic, max, iterations));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -5,22 +5,32 @@ import com.sounditout.backend.domainLayer.entity.StudyPlan;
 import com.sounditout.backend.repositories.ProgressReportRepository;
 import com.sounditout.backend.repositories.ReportEmbeddingRepository;
 import com.sounditout.backend.repositories.StudentRepository;
+import com.sounditout.backend.repositories.VectorSearchMode;
 import com.sounditout.backend.security.CustomUserDetails;
 import com.sounditout.backend.services.StudyAiService;
 import com.sounditout.backend.services.StudyCoachService;
+import com.sounditout.backend.services.StudyPlanJobService;
+import com.sounditout.backend.services.StudyPlanStreamService;
 import com.sounditout.backend.services.YouTubeSearchService;
+import com.sounditout.backend.weblayer.dtos.StudyPlanJobResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/ai")
@@ -34,6 +44,11 @@ public class AiController {
     private final StudentRepository studentRepository;
     private final ProgressReportRepository progressReportRepository;
     private final YouTubeSearchService youTubeSearchService;
+    private final StudyPlanStreamService studyPlanStreamService;
+    private final StudyPlanJobService studyPlanJobService;
+
+    // Longer than the model read timeout so a slow stream still ends with an event
+    private static final long PLAN_STREAM_TIMEOUT_MS = 120_000;
 
 
     // ---------- 1) Upsert an embedding for a report ----------
@@ -46,10 +61,7 @@ public class AiController {
         if (!(auth.getPrincipal() instanceof CustomUserDetails cud)) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
-        Long userId = cud.getId();
-        Long studentId = studentRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Student profile not found"))
-                .getId();
+        Long studentId = studentIdOf(cud);
 
         // 1a) Ensure the report exists AND belongs to this student
         ProgressReport report = progressReportRepository.findById(reportId)
@@ -76,34 +88,110 @@ public class AiController {
     @GetMapping("/study-plan")
     public ResponseEntity<?> generatePlan(
             @RequestParam @NotBlank String goal,
+            @RequestParam(defaultValue = "false") boolean regenerate, // skip this week's stored plan for the same goal
             Authentication auth
     ) {
         if (!(auth.getPrincipal() instanceof CustomUserDetails cud)) {
             return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
         }
-        Long userId = cud.getId();
-        Long studentId = studentRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Student profile not found"))
-                .getId();
+        Long studentId = studentIdOf(cud);
 
-        StudyPlan plan = studyCoachService.generateWeeklyPlan(studentId, goal);
+        StudyPlan plan = studyCoachService.generateWeeklyPlan(studentId, goal, regenerate);
         return ResponseEntity.ok(plan);
     }
 
+    // ---------- 2b) Same plan, streamed as Server-Sent Events ----------
+    // Emits a "task" event per task as the model writes it, then "plan" (persisted) or "error".
+    @GetMapping(value = "/study-plan/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamPlan(
+            @RequestParam @NotBlank String goal,
+            @RequestParam(defaultValue = "false") boolean regenerate, // skip this week's stored plan for the same goal
+            Authentication auth
+    ) {
+        if (!(auth.getPrincipal() instanceof CustomUserDetails cud)) {
+            // No JSON body: this endpoint only produces text/event-stream
+            return ResponseEntity.status(401).build();
+        }
+        Long studentId = studentIdOf(cud);
+
+        SseEmitter emitter = new SseEmitter(PLAN_STREAM_TIMEOUT_MS);
+        try {
+            studyPlanStreamService.streamWeeklyPlan(studentId, goal, regenerate, emitter);
+        } catch (RejectedExecutionException e) {
+            // AI executor is full; nothing was sent yet, so a plain status still works
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    // ---------- 2c) Same plan as a background job: submit, then poll / long-poll ----------
+    @PostMapping("/study-plan/jobs")
+    public ResponseEntity<?> submitPlanJob(
+            @RequestParam @NotBlank String goal,
+            @RequestParam(defaultValue = "false") boolean regenerate, // skip this week's stored plan for the same goal
+            Authentication auth
+    ) {
+        if (!(auth.getPrincipal() instanceof CustomUserDetails cud)) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+        Long studentId = studentIdOf(cud);
+
+        try {
+            var job = studyPlanJobService.submit(studentId, goal, regenerate);
+            return ResponseEntity
+                    .accepted()
+                    .location(URI.create("/api/ai/study-plan/jobs/" + job.id()))
+                    .body(StudyPlanJobResponse.of(job));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "Plan generation is busy, try again shortly"));
+        }
+    }
+
+    /**
+     * Job status; the plan is included once COMPLETED.
+     * waitSeconds > 0 holds the request (without a thread) until the job finishes or the wait ends.
+     */
+    @GetMapping("/study-plan/jobs/{jobId}")
+    public DeferredResult<ResponseEntity<?>> getPlanJob(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(30) int waitSeconds,
+            Authentication auth
+    ) {
+        DeferredResult<ResponseEntity<?>> response = new DeferredResult<>(TimeUnit.SECONDS.toMillis(waitSeconds) + 1);
+        if (!(auth.getPrincipal() instanceof CustomUserDetails cud)) {
+            response.setResult(ResponseEntity.status(401).body(Map.of("error", "Unauthorized")));
+            return response;
+        }
+        Long studentId = studentIdOf(cud);
+
+        var found = studyPlanJobService.find(jobId, studentId);
+        if (found.isEmpty()) {
+            response.setResult(ResponseEntity.status(404).body(Map.of("error", "Job not found")));
+            return response;
+        }
+
+        var job = found.get();
+        if (waitSeconds == 0 || job.result().isDone()) {
+            response.setResult(ResponseEntity.ok(StudyPlanJobResponse.of(job)));
+            return response;
+        }
+        response.onTimeout(() -> response.setResult(ResponseEntity.ok(StudyPlanJobResponse.of(job))));
+        job.result().whenComplete((plan, ex) -> response.setResult(ResponseEntity.ok(StudyPlanJobResponse.of(job))));
+        return response;
+    }
+
     // ---------- 3) (Optional) Search top-K similar chunks ----------
     @GetMapping("/search")
     public ResponseEntity<?> search(
             @RequestParam @NotBlank String query,
-            @RequestParam(defaultValue = "5") @Min(1) int k,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(100) int k,
             @RequestParam(required = false) String subject, // NEW
+            @RequestParam(required = false) VectorSearchMode mode, // vector-only search with this strategy
             Authentication auth
     ) {
-        Long userId = ((CustomUserDetails) auth.getPrincipal()).getId();
-        Long studentId = studentRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Student profile not found"))
-                .getId();
+        Long studentId = studentIdOf((CustomUserDetails) auth.getPrincipal());
 
-        var result = studyCoachService.searchTopK(studentId, query, k, subject);
+        var result = studyCoachService.searchTopK(studentId, query, k, subject, mode);
         return ResponseEntity.ok(Map.of(
                 "studentId", studentId,
                 "query", query,
@@ -133,4 +221,12 @@ public class AiController {
         var list = youTubeSearchService.searchVideos(topic, Math.min(Math.max(max,1), 10));
         return ResponseEntity.ok(list);
     }
+
+    /** Student id from the token claim; older tokens (and admins) fall back to a lookup. */
+    private Long studentIdOf(CustomUserDetails cud) {
+        if (cud.getStudentId() != null) return cud.getStudentId();
+        return studentRepository.findByUserId(cud.getId())
+                .orElseThrow(() -> new RuntimeException("Student profile not found"))
+                .getId();
+    }
 }
@@ -2,19 +2,30 @@ package com.sounditout.backend.weblayer.controllers;
 
 import com.sounditout.backend.domainLayer.entity.ProgressReport;
 import com.sounditout.backend.security.CustomUserDetails;
+import com.sounditout.backend.services.NdjsonStreamService;
+import com.sounditout.backend.services.ProgressReportImportService;
+import com.sounditout.backend.services.ProgressReportImportService.Format;
 import com.sounditout.backend.services.ProgressReportService;
 import com.sounditout.backend.services.StudentService;
+import com.sounditout.backend.weblayer.dtos.CursorPage;
 import com.sounditout.backend.weblayer.dtos.ProgressReportDTO;
 import com.sounditout.backend.weblayer.dtos.ProgressReportResponse;
+import com.sounditout.backend.weblayer.dtos.ReportImportResponse;
 import com.sounditout.backend.weblayer.dtos.StudentResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import static java.lang.System.*;
@@ -22,10 +33,13 @@ import static java.lang.System.*;
 @RestController
 @RequestMapping("/api/reports")
 @RequiredArgsConstructor
+@Validated
 public class ProgressReportController {
 
     private final ProgressReportService reportService;
     private final StudentService studentService;
+    private final NdjsonStreamService ndjsonStreamService;
+    private final ProgressReportImportService importService;
 
     @PostMapping("/{studentId}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -37,6 +51,25 @@ public class ProgressReportController {
         return ResponseEntity.status(HttpStatus.CREATED).body(reportService.toResponse(report));
     }
 
+    /**
+     * Bulk import for one student. The body is streamed: CSV with a header row
+     * (date,lessonTopic,difficulty,initialGradeLevel,milestone,notes,accomplishments,improvementsNeeded)
+     * or one ProgressReportDTO JSON object per line. Returns counts and per-row errors.
+     */
+    @PostMapping(value = "/{studentId}/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportImportResponse> importCsv(@PathVariable Long studentId,
+                                                          InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importReports(studentId, Format.CSV, body));
+    }
+
+    @PostMapping(value = "/{studentId}/import", consumes = NdjsonStreamService.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReportImportResponse> importNdjson(@PathVariable Long studentId,
+                                                             InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importReports(studentId, Format.NDJSON, body));
+    }
+
     @GetMapping("/student/{studentId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<ProgressReportResponse>> getReports(@PathVariable Long studentId) {
@@ -44,6 +77,25 @@ public class ProgressReportController {
                 .map(reportService::toResponse).toList());
     }
 
+    /** A student's reports in id order, one keyset page at a time (?after = previous page's nextCursor). */
+    @GetMapping("/student/{studentId}/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<ProgressReportResponse>> getReportsPage(
+            @PathVariable Long studentId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        return ResponseEntity.ok(reportService.getPageByStudent(studentId, after, limit));
+    }
+
+    /** All of a student's reports as NDJSON, written while the rows are read. */
+    @GetMapping(value = "/student/{studentId}/stream", produces = NdjsonStreamService.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamReports(@PathVariable Long studentId) {
+        return ResponseEntity.ok()
+                .contentType(NdjsonStreamService.APPLICATION_NDJSON)
+                .body(out -> ndjsonStreamService.streamReports(studentId, out));
+    }
+
     @GetMapping("/my")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<List<ProgressReportResponse>> getMyReports(Authentication authentication) {
@@ -52,11 +104,7 @@ public class ProgressReportController {
 
         out.println("🔍 Authenticated User ID: " + userId);
 
-        List<ProgressReport> reports = reportService.getByUserId(userId);
-
-        return ResponseEntity.ok(reports.stream()
-                .map(reportService::toResponse)
-                .toList());
+        return ResponseEntity.ok(reportService.getByUserId(userId));
     }
 
     /** Update an existing progress report (ADMIN only) */
@@ -1,34 +1,77 @@
 package com.sounditout.backend.weblayer.controllers;
 
+import com.sounditout.backend.services.HistoryExportService;
+import com.sounditout.backend.services.NdjsonStreamService;
 import com.sounditout.backend.services.StudentService;
+import com.sounditout.backend.weblayer.dtos.CursorPage;
 import com.sounditout.backend.weblayer.dtos.StudentDTO;
 import com.sounditout.backend.weblayer.dtos.StudentGroupAssignmentDTO;
 import com.sounditout.backend.weblayer.dtos.StudentResponse;
+import com.sounditout.backend.weblayer.dtos.StudentSuggestion;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/students")
 @RequiredArgsConstructor
+@Validated
 public class StudentController {
 
     private final StudentService studentService;
+    private final NdjsonStreamService ndjsonStreamService;
+    private final HistoryExportService historyExportService;
 
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<StudentResponse> getById(@PathVariable Long id) {
-        return studentService.findById(id)
-                .map(studentService::toResponse)
+        return studentService.findResponseById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Download a student's full history (reports, then study plans) as NDJSON or CSV,
+     * optionally gzipped. Streamed from the database, so any size works.
+     */
+    @GetMapping("/{id}/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportHistory(@PathVariable Long id,
+                                           @RequestParam(defaultValue = "NDJSON") HistoryExportService.Format format,
+                                           @RequestParam(defaultValue = "false") boolean gzip) {
+        if (studentService.findResponseById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String filename = "student-" + id + "-history" + (format == HistoryExportService.Format.CSV ? ".csv" : ".ndjson");
+        MediaType type = format == HistoryExportService.Format.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : NdjsonStreamService.APPLICATION_NDJSON;
+        if (gzip) {
+            filename += ".gz";
+            type = MediaType.parseMediaType("application/gzip");
+        }
+
+        StreamingResponseBody body = out -> historyExportService.export(id, format, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<StudentResponse> create(@Valid @RequestBody StudentDTO dto) {
@@ -53,13 +96,39 @@ public class StudentController {
                 .toList());
     }
 
+    /** Students in id order, one keyset page at a time (?after = previous page's nextCursor). */
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<StudentResponse>> getStudentsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        return ResponseEntity.ok(studentService.getPage(after, limit));
+    }
+
+    /** Every student as NDJSON, written while the rows are read. */
+    @GetMapping(value = "/stream", produces = NdjsonStreamService.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllStudents() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonStreamService.APPLICATION_NDJSON)
+                .body(ndjsonStreamService::streamStudents);
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<StudentResponse>> searchByName(@RequestParam String name) {
-        return ResponseEntity.ok(studentService.searchByName(name)
-                .stream()
-                .map(studentService::toResponse)
-                .toList());
+    public ResponseEntity<List<StudentResponse>> searchByName(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit) {
+        return ResponseEntity.ok(studentService.searchByName(name, limit));
+    }
+
+    /** Search-box suggestions, best match first. */
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<StudentSuggestion>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(25) int limit) {
+        return ResponseEntity.ok(studentService.autocomplete(q, limit));
     }
 
 
@@ -0,0 +1,35 @@
+package com.sounditout.backend.weblayer.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/** One keyset page: pass {@code nextCursor} back as {@code ?after=} for the next one. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private Long nextCursor;      // null on the last page
+
+    /**
+     * Build a page from {@code limit + 1} rows fetched in cursor order: the extra row only
+     * tells us there is a next page and is dropped.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int limit,
+                                          Function<E, Long> cursorOf, Function<E, T> mapper) {
+        boolean hasMore = rows.size() > limit;
+        List<E> page = hasMore ? rows.subList(0, limit) : rows;
+        Long next = hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), next);
+    }
+
+    /** Same, for rows that are already the response type (projection queries). */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> cursorOf) {
+        return of(rows, limit, cursorOf, Function.identity());
+    }
+}
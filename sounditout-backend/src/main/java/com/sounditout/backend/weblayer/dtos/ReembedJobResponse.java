@@ -0,0 +1,52 @@
+package com.sounditout.backend.weblayer.dtos;
+
+import com.sounditout.backend.domainLayer.entity.ReembedJob;
+import com.sounditout.backend.domainLayer.enums.ReembedJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReembedJobResponse {
+
+    private Long id;
+    private ReembedJobStatus status;
+    private boolean force;
+    private long totalReports;
+    private long processed;
+    private long embedded;
+    private long failed;
+    private long lastReportId;
+    private double percentComplete;
+    private Long etaSeconds;      // null while the rate is still unknown
+    private String lastError;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime updatedAt;
+    private OffsetDateTime finishedAt;
+
+    public static ReembedJobResponse of(ReembedJob job, Long etaSeconds) {
+        double pct = job.getTotalReports() == 0
+                ? 100.0
+                : Math.min(100.0, 100.0 * job.getProcessed() / job.getTotalReports());
+        return new ReembedJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.isForce(),
+                job.getTotalReports(),
+                job.getProcessed(),
+                job.getEmbedded(),
+                job.getFailed(),
+                job.getLastReportId(),
+                Math.round(pct * 10) / 10.0,
+                etaSeconds,
+                job.getLastError(),
+                job.getStartedAt(),
+                job.getUpdatedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
@@ -0,0 +1,23 @@
+package com.sounditout.backend.weblayer.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReportImportResponse {
+
+    private Long studentId;
+    private int received;             // data rows read (CSV header and blank lines not counted)
+    private int imported;
+    private int failed;
+    private List<RowError> errors;    // first errors only, see errorsTruncated
+    private boolean errorsTruncated;
+
+    /** Why one input row was not imported; line is where the row starts in the upload. */
+    public record RowError(long line, String error) { }
+}
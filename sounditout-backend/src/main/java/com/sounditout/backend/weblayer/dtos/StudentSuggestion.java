@@ -0,0 +1,19 @@
+package com.sounditout.backend.weblayer.dtos;
+
+import com.sounditout.backend.domainLayer.enums.GradeRange;
+import com.sounditout.backend.domainLayer.enums.StudentGroup;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentSuggestion {
+
+    private Long id;
+    private String fullName;
+    private GradeRange grade;
+    private StudentGroup studentGroup;
+    private double score;         // word similarity to the query, 0..1 (1 for short prefix matches)
+}
@@ -0,0 +1,32 @@
+package com.sounditout.backend.weblayer.dtos;
+
+import com.sounditout.backend.domainLayer.entity.StudyPlan;
+import com.sounditout.backend.services.StudyPlanJobService.PlanJob;
+import com.sounditout.backend.services.StudyPlanJobService.Status;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudyPlanJobResponse {
+
+    private String jobId;
+    private Status status;
+    private OffsetDateTime submittedAt;
+    private StudyPlan plan;       // set once COMPLETED
+    private String error;         // set once FAILED
+
+    public static StudyPlanJobResponse of(PlanJob job) {
+        return new StudyPlanJobResponse(
+                job.id(),
+                job.status(),
+                job.submittedAt(),
+                job.plan(),
+                job.error()
+        );
+    }
+}
@@ -0,0 +1,10 @@
+-- Keyset pagination of a student's reports: WHERE student_id = ? AND id > ? ORDER BY id LIMIT ?
+-- progress_report is created by Hibernate, so only index it once it exists (same as V3).
+
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM information_schema.tables WHERE table_schema='public' AND table_name='progress_report') THEN
+    EXECUTE 'CREATE INDEX IF NOT EXISTS idx_progress_report_student_keyset
+             ON progress_report (student_id, id)';
+END IF;
+END $$;
@@ -0,0 +1,17 @@
+-- Admin student search / autocomplete.
+-- Queries of 3+ characters match with pg_trgm (ILIKE '%q%' or word similarity) and are
+-- ranked by word_similarity; the GIN index serves both. Shorter queries are prefix
+-- matches on lower(full_name), which the text_pattern_ops index serves.
+-- student is created by Hibernate, so only index it once it exists (same as V3).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DO $$
+BEGIN
+  IF EXISTS (SELECT 1 FROM information_schema.tables WHERE table_schema='public' AND table_name='student') THEN
+    EXECUTE 'CREATE INDEX IF NOT EXISTS idx_student_full_name_trgm
+             ON student USING gin (full_name gin_trgm_ops)';
+    EXECUTE 'CREATE INDEX IF NOT EXISTS idx_student_full_name_prefix
+             ON student (lower(full_name) text_pattern_ops)';
+END IF;
+END $$;
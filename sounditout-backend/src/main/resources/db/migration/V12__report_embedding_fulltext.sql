@@ -0,0 +1,21 @@
+-- Hybrid retrieval: a full-text leg next to the vector leg, fused with reciprocal-rank
+-- fusion in ReportEmbeddingRepositoryImpl.hybridSearchTopK.
+-- The tsvector is generated from subject (weight A) and content (weight B), so the
+-- batched upserts keep it current without any application change. Adding a stored
+-- generated column rewrites the table once.
+
+ALTER TABLE report_embedding ADD COLUMN IF NOT EXISTS search_tsv tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(subject, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(content, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_embedding_search_tsv
+    ON report_embedding USING gin (search_tsv);
+
+-- The subject filter is "contains, case-insensitive" (subject ILIKE '%x%'), which a btree
+-- can't serve; a trigram index can (pg_trgm, see V11).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_embedding_subject_trgm
+    ON report_embedding USING gin (subject gin_trgm_ops);
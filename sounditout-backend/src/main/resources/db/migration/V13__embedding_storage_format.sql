@@ -0,0 +1,58 @@
+-- V13__embedding_storage_format.sql
+-- Lets report_embedding.embedding be stored as vector(n) (float32) or halfvec(n) (float16),
+-- with n at most the current dimension count. Nothing changes until an admin calls it
+-- (POST /api/admin/ai/embedding-storage); the app reads the live column type at runtime.
+--
+-- Shorter vectors are the first n dimensions, re-normalized. For text-embedding-3 models
+-- that is exactly what the API's `dimensions` option returns, so no OpenAI calls are needed.
+-- Vectors from other models must be re-embedded afterwards (/api/admin/ai/reembed-jobs).
+--
+-- The ALTER rewrites the table under an ACCESS EXCLUSIVE lock, and the HNSW index is rebuilt
+-- with the matching operator class. Needs pgvector 0.7+ (halfvec, subvector, l2_normalize).
+CREATE OR REPLACE FUNCTION convert_report_embedding_storage(p_type text, p_dims integer)
+RETURNS text
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_type text := lower(p_type);
+    v_current_type text;
+    v_current_dims integer;
+    v_target text;
+BEGIN
+    IF v_type NOT IN ('vector', 'halfvec') THEN
+        RAISE EXCEPTION 'Unsupported embedding storage type: %', p_type;
+    END IF;
+
+    -- pgvector keeps the dimension count in atttypmod
+    SELECT format_type(a.atttypid, a.atttypmod), a.atttypmod INTO v_current_type, v_current_dims
+    FROM pg_attribute a
+    WHERE a.attrelid = 'report_embedding'::regclass
+      AND a.attname = 'embedding'
+      AND NOT a.attisdropped;
+
+    IF p_dims IS NULL OR p_dims < 1 OR (v_current_dims > 0 AND p_dims > v_current_dims) THEN
+        RAISE EXCEPTION 'Cannot store % dimensions (column has %); larger vectors need a re-embed',
+            p_dims, v_current_dims;
+    END IF;
+
+    v_target := format('%s(%s)', v_type, p_dims);
+    IF v_current_type = v_target THEN
+        RETURN v_target;
+    END IF;
+
+    DROP INDEX IF EXISTS idx_embedding_vector_hnsw;
+
+    EXECUTE format(
+        'ALTER TABLE report_embedding ALTER COLUMN embedding TYPE %s '
+        'USING (CASE WHEN vector_dims(embedding::vector) = %s THEN embedding::vector '
+        'ELSE l2_normalize(subvector(embedding::vector, 1, %s)) END)::%s',
+        v_target, p_dims, p_dims, v_target);
+
+    EXECUTE format(
+        'CREATE INDEX idx_embedding_vector_hnsw ON report_embedding '
+        'USING hnsw (embedding %s_cosine_ops) WITH (m = 16, ef_construction = 64)',
+        v_type);
+
+    RETURN v_target;
+END
+$$;
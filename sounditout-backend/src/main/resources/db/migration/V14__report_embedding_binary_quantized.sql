@@ -0,0 +1,91 @@
+-- V14__report_embedding_binary_quantized.sql
+-- Binary-quantized copy of each embedding (one bit per dimension: 192 bytes for 1536 dims)
+-- with an HNSW index on Hamming distance. VectorSearchMode.BINARY takes a wide candidate set
+-- from it and re-ranks those rows by exact cosine on the full embedding.
+--
+-- embedding_bq is a generated column, so writes need no changes and existing rows are
+-- filled when it is added (one table rewrite). Its width follows the embedding column.
+
+-- Adds embedding_bq + idx_embedding_bq_hnsw for the current embedding width (no-op if present)
+CREATE OR REPLACE FUNCTION add_report_embedding_bq()
+RETURNS void
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_dims integer;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_attribute
+                   WHERE attrelid = 'report_embedding'::regclass
+                     AND attname = 'embedding_bq'
+                     AND NOT attisdropped) THEN
+        SELECT atttypmod INTO v_dims
+        FROM pg_attribute
+        WHERE attrelid = 'report_embedding'::regclass
+          AND attname = 'embedding'
+          AND NOT attisdropped;
+
+        EXECUTE format(
+            'ALTER TABLE report_embedding ADD COLUMN embedding_bq bit(%s) '
+            'GENERATED ALWAYS AS (binary_quantize(embedding)::bit(%s)) STORED',
+            v_dims, v_dims);
+    END IF;
+
+    CREATE INDEX IF NOT EXISTS idx_embedding_bq_hnsw
+        ON report_embedding USING hnsw (embedding_bq bit_hamming_ops) WITH (m = 16, ef_construction = 64);
+END
+$$;
+
+SELECT add_report_embedding_bq();
+
+-- Same as V13, except that embedding_bq (which Postgres won't let us keep while the type of
+-- the column it is generated from changes) is dropped first and re-added at the new width.
+CREATE OR REPLACE FUNCTION convert_report_embedding_storage(p_type text, p_dims integer)
+RETURNS text
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    v_type text := lower(p_type);
+    v_current_type text;
+    v_current_dims integer;
+    v_target text;
+BEGIN
+    IF v_type NOT IN ('vector', 'halfvec') THEN
+        RAISE EXCEPTION 'Unsupported embedding storage type: %', p_type;
+    END IF;
+
+    -- pgvector keeps the dimension count in atttypmod
+    SELECT format_type(a.atttypid, a.atttypmod), a.atttypmod INTO v_current_type, v_current_dims
+    FROM pg_attribute a
+    WHERE a.attrelid = 'report_embedding'::regclass
+      AND a.attname = 'embedding'
+      AND NOT a.attisdropped;
+
+    IF p_dims IS NULL OR p_dims < 1 OR (v_current_dims > 0 AND p_dims > v_current_dims) THEN
+        RAISE EXCEPTION 'Cannot store % dimensions (column has %); larger vectors need a re-embed',
+            p_dims, v_current_dims;
+    END IF;
+
+    v_target := format('%s(%s)', v_type, p_dims);
+    IF v_current_type = v_target THEN
+        RETURN v_target;
+    END IF;
+
+    DROP INDEX IF EXISTS idx_embedding_vector_hnsw;
+    ALTER TABLE report_embedding DROP COLUMN IF EXISTS embedding_bq;   -- drops idx_embedding_bq_hnsw too
+
+    EXECUTE format(
+        'ALTER TABLE report_embedding ALTER COLUMN embedding TYPE %s '
+        'USING (CASE WHEN vector_dims(embedding::vector) = %s THEN embedding::vector '
+        'ELSE l2_normalize(subvector(embedding::vector, 1, %s)) END)::%s',
+        v_target, p_dims, p_dims, v_target);
+
+    EXECUTE format(
+        'CREATE INDEX idx_embedding_vector_hnsw ON report_embedding '
+        'USING hnsw (embedding %s_cosine_ops) WITH (m = 16, ef_construction = 64)',
+        v_type);
+
+    PERFORM add_report_embedding_bq();
+
+    RETURN v_target;
+END
+$$;
@@ -0,0 +1,7 @@
+-- V15__report_embedding_model.sql
+-- The embedding model that produced each stored vector. Cutting vectors to fewer dimensions
+-- (convert_report_embedding_storage) is only valid for text-embedding-3 models, and query
+-- vectors must come from the same model as the rows they are compared with.
+-- NULL = written before this column existed (model unknown); a re-embedding job fills it in.
+
+ALTER TABLE report_embedding ADD COLUMN IF NOT EXISTS embedding_model TEXT;
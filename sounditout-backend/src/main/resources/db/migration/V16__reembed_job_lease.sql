@@ -0,0 +1,7 @@
+-- V16__reembed_job_lease.sql
+-- Which instance runs a RUNNING job, and until when. The owner renews the lease at every
+-- page checkpoint; another instance only takes the job over (e.g. when it starts up) once
+-- the lease has lapsed or been released. NULL lease_until = free to claim.
+
+ALTER TABLE reembed_job ADD COLUMN IF NOT EXISTS lease_owner TEXT;
+ALTER TABLE reembed_job ADD COLUMN IF NOT EXISTS lease_until TIMESTAMPTZ;
@@ -0,0 +1,16 @@
+-- V5__report_embedding_upsert.sql
+-- One embedding row per report, keyed on report_id, with a hash of the embedded text
+-- so unchanged reports can skip the embedding call.
+
+-- 1) Keep only the newest row per report before enforcing uniqueness
+DELETE FROM report_embedding older
+    USING report_embedding newer
+WHERE older.report_id = newer.report_id
+  AND older.id < newer.id;
+
+-- 2) Content hash of the embedded document (NULL for rows written before this migration)
+ALTER TABLE report_embedding ADD COLUMN IF NOT EXISTS content_hash TEXT;
+
+-- 3) Upsert target: INSERT ... ON CONFLICT (report_id)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_embedding_report
+    ON report_embedding (report_id);
@@ -0,0 +1,20 @@
+-- V6__reembed_job.sql
+-- Global re-embedding jobs (admin). The job walks progress reports in id order and
+-- checkpoints the last fully processed report id, so it can resume after a restart.
+CREATE TABLE IF NOT EXISTS reembed_job (
+                                           id             BIGSERIAL PRIMARY KEY,
+                                           status         TEXT NOT NULL,             -- RUNNING | COMPLETED | FAILED | CANCELLED
+                                           force          BOOLEAN NOT NULL DEFAULT TRUE,
+                                           total_reports  BIGINT NOT NULL DEFAULT 0,
+                                           processed      BIGINT NOT NULL DEFAULT 0,
+                                           embedded       BIGINT NOT NULL DEFAULT 0,
+                                           failed         BIGINT NOT NULL DEFAULT 0,
+                                           last_report_id BIGINT NOT NULL DEFAULT 0, -- checkpoint
+                                           last_error     TEXT,
+                                           started_at     TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                           updated_at     TIMESTAMPTZ NOT NULL DEFAULT now(),
+                                           finished_at    TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS idx_reembed_job_status
+    ON reembed_job (status);
@@ -0,0 +1,12 @@
+-- V7__hnsw_embedding_index.sql
+-- Replace the global ivfflat index with HNSW.
+-- The ivfflat index from V2 was built on an empty table, so its 100 lists carry no real
+-- centroids, and with a WHERE student_id filter applied after the scan it often returned
+-- fewer than k rows. HNSW needs no training and, with hnsw.iterative_scan (pgvector 0.8+),
+-- keeps scanning until enough rows pass the filter. Small per-student corpora skip the
+-- index entirely and use idx_embedding_student_subject (exact scan, see ReportEmbeddingRepositoryImpl).
+CREATE INDEX IF NOT EXISTS idx_embedding_vector_hnsw
+    ON report_embedding USING hnsw (embedding vector_cosine_ops) WITH (m = 16, ef_construction = 64);
+
+DROP INDEX IF EXISTS idx_embedding_vector;
+
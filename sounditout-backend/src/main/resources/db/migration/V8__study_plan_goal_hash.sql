@@ -0,0 +1,9 @@
+-- Plan memoization: the same student asking for the same (normalized) goal in the
+-- same week gets the stored plan back instead of a new LLM completion.
+-- goal_hash = SHA-256 (hex) of the normalized goal text; NULL for plans created before this.
+
+ALTER TABLE study_plan ADD COLUMN IF NOT EXISTS goal_hash TEXT;
+
+-- Not unique: "regenerate" intentionally stores another plan for the same key; the latest wins.
+CREATE INDEX IF NOT EXISTS idx_study_plan_memo
+    ON study_plan (student_id, week_start, goal_hash, id DESC);
@@ -0,0 +1,16 @@
+-- Persistent second tier for the ytSearch cache (L1 is Caffeine in YouTubeSearchService),
+-- so warmed search results survive restarts instead of costing YouTube quota again.
+-- cache_key = md5(normalized topic) || ':' || max_results.
+
+CREATE TABLE IF NOT EXISTS yt_search_cache (
+    cache_key   TEXT PRIMARY KEY,
+    topic       TEXT        NOT NULL,
+    max_results INT         NOT NULL,
+    videos      JSONB       NOT NULL,
+    fetched_at  TIMESTAMPTZ NOT NULL,
+    expires_at  TIMESTAMPTZ NOT NULL,
+    hits        BIGINT      NOT NULL DEFAULT 0   -- times L1 had to come here (or refetch); used for warm-up
+);
+
+CREATE INDEX IF NOT EXISTS idx_yt_search_cache_expires ON yt_search_cache (expires_at);
+CREATE INDEX IF NOT EXISTS idx_yt_search_cache_hits ON yt_search_cache (hits DESC);
@@ -0,0 +1,61 @@
+package com.sounditout.backend.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddingStorageFormatTests {
+
+    @Test
+    void parsesFormatTypeOutput() {
+        assertEquals(new EmbeddingStorageFormat(EmbeddingStorageFormat.Type.VECTOR, 1536),
+                EmbeddingStorageFormat.parse("vector(1536)"));
+        assertEquals(new EmbeddingStorageFormat(EmbeddingStorageFormat.Type.HALFVEC, 512),
+                EmbeddingStorageFormat.parse(" halfvec(512) "));
+    }
+
+    @Test
+    void rejectsOtherTypes() {
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingStorageFormat.parse("vector"));
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingStorageFormat.parse("bit(1536)"));
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingStorageFormat.parse("VECTOR(3)"));
+        assertThrows(IllegalArgumentException.class, () -> EmbeddingStorageFormat.parse(null));
+    }
+
+    @Test
+    void sizesAndSqlType() {
+        EmbeddingStorageFormat half = new EmbeddingStorageFormat(EmbeddingStorageFormat.Type.HALFVEC, 512);
+        assertEquals("halfvec(512)", half.sqlType());
+        assertEquals(8 + 2 * 512, half.bytesPerVector());
+        assertEquals(8 + 4 * 1536, EmbeddingStorageFormat.parse("vector(1536)").bytesPerVector());
+    }
+
+    @Test
+    void truncateKeepsThePrefixAndRenormalizes() {
+        float[] cut = EmbeddingStorage.truncate(new float[] { 3f, 4f, 12f }, 2);
+        assertArrayEquals(new float[] { 0.6f, 0.8f }, cut, 1e-6f);
+    }
+
+    @Test
+    void truncateLeavesAZeroPrefixAlone() {
+        assertArrayEquals(new float[] { 0f, 0f }, EmbeddingStorage.truncate(new float[] { 0f, 0f, 1f }, 2));
+    }
+
+    @Test
+    void truncateToFullLengthOnlyNormalizes() {
+        float[] v = EmbeddingStorage.truncate(new float[] { 2f, 0f }, 2);
+        assertArrayEquals(new float[] { 1f, 0f }, v);
+    }
+
+    @Test
+    void onlyTextEmbedding3ModelsCanBeShortened() {
+        assertTrue(EmbeddingStorage.supportsShortening("text-embedding-3-small"));
+        assertTrue(EmbeddingStorage.supportsShortening("text-embedding-3-large"));
+        assertFalse(EmbeddingStorage.supportsShortening("text-embedding-ada-002"));
+        assertFalse(EmbeddingStorage.supportsShortening(null));
+    }
+}
@@ -0,0 +1,25 @@
+package com.sounditout.backend.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportEmbeddingRepositoryImplTests {
+
+    @Test
+    void iterativeScanNeedsPgvector08() {
+        assertTrue(ReportEmbeddingRepositoryImpl.supportsIterativeScan("0.8.0"));
+        assertTrue(ReportEmbeddingRepositoryImpl.supportsIterativeScan("0.10.1"));
+        assertTrue(ReportEmbeddingRepositoryImpl.supportsIterativeScan("1.0"));
+        assertFalse(ReportEmbeddingRepositoryImpl.supportsIterativeScan("0.7.4"));
+        assertFalse(ReportEmbeddingRepositoryImpl.supportsIterativeScan("0.5"));
+    }
+
+    @Test
+    void unreadableVersionsAreTreatedAsOld() {
+        assertFalse(ReportEmbeddingRepositoryImpl.supportsIterativeScan(null));
+        assertFalse(ReportEmbeddingRepositoryImpl.supportsIterativeScan(""));
+        assertFalse(ReportEmbeddingRepositoryImpl.supportsIterativeScan("dev"));
+    }
+}
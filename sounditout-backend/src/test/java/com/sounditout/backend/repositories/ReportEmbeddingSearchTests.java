@@ -0,0 +1,122 @@
+package com.sounditout.backend.repositories;
+
+import com.sounditout.backend.repositories.ReportEmbeddingRepositoryCustom.NewEmbedding;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Search queries against the real schema (all migrations) on the pgvector image docker-compose uses. */
+@Testcontainers(disabledWithoutDocker = true)
+class ReportEmbeddingSearchTests {
+
+    private static final int DIMENSIONS = 1536;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+
+    private static ReportEmbeddingRepositoryImpl repo;
+
+    @BeforeAll
+    static void setUp() {
+        DataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        EmbeddingStorage storage = new EmbeddingStorage(jdbcTemplate, "VECTOR", 0, "text-embedding-3-small");
+        repo = new ReportEmbeddingRepositoryImpl(jdbcTemplate, storage, new SyncTaskExecutor());
+        ReflectionTestUtils.setField(repo, "exactMaxRows", 2000L);
+        ReflectionTestUtils.setField(repo, "hnswEfSearchFactor", 10);
+        ReflectionTestUtils.setField(repo, "hybridCandidates", 50);
+        ReflectionTestUtils.setField(repo, "rrfK", 60);
+        ReflectionTestUtils.setField(repo, "binaryRerankFactor", 10);
+
+        repo.upsertEmbeddings(List.of(
+                row(1, 1, "Phonics", "Practised the digraph sh in ship and shop", axis(0)),
+                row(1, 2, "Reading", "Read a short story about a dog", axis(1)),
+                row(1, 3, "Math", "Counted to twenty", axis(2)),
+                row(2, 4, "Phonics", "Another student's digraph lesson", axis(0))));
+    }
+
+    private static NewEmbedding row(long studentId, long reportId, String subject, String content, float[] v) {
+        return new NewEmbedding(studentId, reportId, subject, content, "hash-" + reportId, v);
+    }
+
+    /** Unit vector along one axis: cosine similarity 1 with itself, 0 with every other axis. */
+    private static float[] axis(int i) {
+        float[] v = new float[DIMENSIONS];
+        v[i] = 1f;
+        return v;
+    }
+
+    private static List<Long> reportIds(List<Object[]> rows) {
+        return rows.stream().map(r -> (Long) r[2]).toList();
+    }
+
+    @Test
+    void hybridFusesBothRankings() {
+        // Vector leg: 2, 1, 3 (ties by id). Lexical leg: only 1 mentions "digraph".
+        List<Object[]> rows = repo.hybridSearchTopK(1L, "digraph", axis(1), 3, null);
+
+        assertEquals(List.of(1L, 2L, 3L), reportIds(rows));
+        assertEquals(1 / 61.0 + 1 / 62.0, (double) rows.get(0)[7], 1e-9);
+        assertEquals(1L, rows.get(0)[8]);
+        assertEquals(0.0, (double) rows.get(0)[6], 1e-6);   // score stays cosine similarity
+        assertNull(rows.get(1)[8]);
+        assertNull(rows.get(2)[8]);
+    }
+
+    @Test
+    void hybridKeepsTheStudentAndSubjectFilters() {
+        List<Object[]> rows = repo.hybridSearchTopK(1L, "digraph", axis(0), 5, "phon");
+
+        assertEquals(List.of(1L), reportIds(rows));
+    }
+
+    @Test
+    void lexicalLegAloneReturnsMatchesWithCosineScores() {
+        List<Object[]> rows = repo.lexicalSearchTopK(1L, "digraph story", axis(1), 5, null);
+
+        assertEquals(2, rows.size());
+        assertEquals(7, rows.get(0).length);
+        for (Object[] r : rows) {
+            double expected = (Long) r[2] == 2L ? 1.0 : 0.0;
+            assertEquals(expected, (double) r[6], 1e-6, "report " + r[2] + " in " + Arrays.toString(r));
+        }
+    }
+
+    @Test
+    void binaryRerankOrdersCandidatesByExactCosine() {
+        // Every axis vector is Hamming distance 2 from every other: the re-rank decides
+        List<Object[]> rows = repo.searchTopKWithScore(1L, axis(2), 2, null, VectorSearchMode.BINARY);
+
+        assertEquals(2, rows.size());
+        assertEquals(3L, rows.get(0)[2]);
+        assertEquals(1.0, (double) rows.get(0)[6], 1e-6);
+        assertEquals(1L, rows.get(0)[1]);
+        assertEquals(1L, rows.get(1)[1]);
+    }
+
+    @Test
+    void binaryKeepsTheSubjectFilter() {
+        List<Object[]> rows = repo.searchTopKWithScore(1L, axis(1), 5, "phon", VectorSearchMode.BINARY);
+
+        assertEquals(List.of(1L), reportIds(rows));
+    }
+}
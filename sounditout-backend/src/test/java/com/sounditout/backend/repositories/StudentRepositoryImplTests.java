@@ -0,0 +1,26 @@
+package com.sounditout.backend.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StudentRepositoryImplTests {
+
+    @Test
+    void plainTextIsUnchanged() {
+        assertEquals("Ana María", StudentRepositoryImpl.escapeLike("Ana María"));
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        assertEquals("100\\%", StudentRepositoryImpl.escapeLike("100%"));
+        assertEquals("a\\_b", StudentRepositoryImpl.escapeLike("a_b"));
+    }
+
+    @Test
+    void escapesBackslashFirst() {
+        // The escape character itself must not end up escaping the next wildcard
+        assertEquals("\\\\\\%", StudentRepositoryImpl.escapeLike("\\%"));
+        assertEquals("C:\\\\tmp", StudentRepositoryImpl.escapeLike("C:\\tmp"));
+    }
+}
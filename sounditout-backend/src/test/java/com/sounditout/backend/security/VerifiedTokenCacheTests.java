@@ -0,0 +1,82 @@
+package com.sounditout.backend.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class VerifiedTokenCacheTests {
+
+    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = spy(new JwtUtil(Base64.getEncoder().encodeToString(key.getEncoded())));
+        cache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), 100);
+    }
+
+    private String token(String subject, Duration ttl) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setExpiration(Date.from(Instant.now().plus(ttl)))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        String token = token("a@example.com", Duration.ofHours(1));
+
+        assertEquals("a@example.com", cache.verify(token).getSubject());
+        assertEquals("a@example.com", cache.verify(token).getSubject());
+        verify(jwtUtil, times(1)).parseClaims(anyString());
+    }
+
+    @Test
+    void cachedEntryExpiresWithTheToken() throws InterruptedException {
+        String token = token("a@example.com", Duration.ofMillis(1500));
+        Date exp = cache.verify(token).getExpiration();
+
+        Thread.sleep(Math.max(exp.getTime() - System.currentTimeMillis(), 0) + 50);
+
+        assertThrows(ExpiredJwtException.class, () -> cache.verify(token));
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        String revoked = token("a@example.com", Duration.ofHours(1));
+        String other = token("b@example.com", Duration.ofHours(1));
+        cache.verify(revoked);
+
+        cache.revoke(revoked);
+
+        assertThrows(JwtException.class, () -> cache.verify(revoked));
+        assertDoesNotThrow(() -> cache.verify(other));
+    }
+
+    @Test
+    void revokingAnInvalidTokenIsANoOp() {
+        assertDoesNotThrow(() -> cache.revoke("not-a-jwt"));
+    }
+}
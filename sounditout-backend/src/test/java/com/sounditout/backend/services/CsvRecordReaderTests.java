@@ -0,0 +1,86 @@
+package com.sounditout.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRecordReaderTests {
+
+    private static CsvRecordReader reader(String csv) {
+        return new CsvRecordReader(new StringReader(csv));
+    }
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        CsvRecordReader r = reader("a,b,c\n1,,3\n");
+        assertEquals(List.of("a", "b", "c"), r.next());
+        assertEquals(List.of("1", "", "3"), r.next());
+        assertNull(r.next());
+    }
+
+    @Test
+    void lastRecordNeedsNoLineBreak() throws IOException {
+        CsvRecordReader r = reader("a,b\nc,d");
+        assertEquals(List.of("a", "b"), r.next());
+        assertEquals(List.of("c", "d"), r.next());
+        assertNull(r.next());
+    }
+
+    @Test
+    void quotedFieldsKeepCommasAndLineBreaks() throws IOException {
+        CsvRecordReader r = reader("id,notes\n7,\"first line\nsecond, line\"\n8,x\n");
+        r.next();
+        assertEquals(List.of("7", "first line\nsecond, line"), r.next());
+        assertEquals(List.of("8", "x"), r.next());
+    }
+
+    @Test
+    void doubledQuoteIsALiteralQuote() throws IOException {
+        CsvRecordReader r = reader("\"say \"\"hi\"\"\",\"\"\"\"\n");
+        assertEquals(List.of("say \"hi\"", "\""), r.next());
+    }
+
+    @Test
+    void stripsLeadingByteOrderMark() throws IOException {
+        CsvRecordReader r = reader("\uFEFFstudentId,topic\n\uFEFF1,x\n");
+        assertEquals(List.of("studentId", "topic"), r.next());
+        // Only at the very start of the input
+        assertEquals(List.of("\uFEFF1", "x"), r.next());
+    }
+
+    @Test
+    void countsCrLfAsOneLine() throws IOException {
+        CsvRecordReader r = reader("h1,h2\r\na,b\r\n\r\nc,d\r\n");
+        r.next();
+        assertEquals(1, r.recordLine());
+        r.next();
+        assertEquals(2, r.recordLine());
+        assertEquals(List.of("c", "d"), r.next());
+        assertEquals(4, r.recordLine());
+        assertNull(r.next());
+    }
+
+    @Test
+    void lineNumbersCountBreaksInsideQuotes() throws IOException {
+        CsvRecordReader r = reader("h\r\n\"one\r\ntwo\nthree\"\r\nnext\r\n");
+        r.next();
+        assertEquals(List.of("one\r\ntwo\nthree"), r.next());
+        assertEquals(2, r.recordLine());
+        assertEquals(List.of("next"), r.next());
+        assertEquals(5, r.recordLine());
+    }
+
+    @Test
+    void unterminatedQuoteFails() throws IOException {
+        CsvRecordReader r = reader("a\n\"never closed,\n");
+        r.next();
+        IOException e = assertThrows(IOException.class, r::next);
+        assertEquals("Unterminated quoted field starting on line 2", e.getMessage());
+    }
+}
@@ -0,0 +1,42 @@
+package com.sounditout.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistoryExportServiceTests {
+
+    @Test
+    void plainFieldsAreNotQuoted() {
+        assertEquals("Short vowels", HistoryExportService.escape("Short vowels"));
+        assertEquals("", HistoryExportService.escape(""));
+    }
+
+    @Test
+    void quotesFieldsWithSeparatorsOrLineBreaks() {
+        assertEquals("\"a,b\"", HistoryExportService.escape("a,b"));
+        assertEquals("\"line 1\nline 2\"", HistoryExportService.escape("line 1\nline 2"));
+        assertEquals("\"line 1\r\nline 2\"", HistoryExportService.escape("line 1\r\nline 2"));
+    }
+
+    @Test
+    void doublesQuotes() {
+        assertEquals("\"said \"\"ok\"\"\"", HistoryExportService.escape("said \"ok\""));
+    }
+
+    @Test
+    void prefixesFormulaLikeText() {
+        assertEquals("\"'=HYPERLINK(\"\"x\"\")\"", HistoryExportService.escape("=HYPERLINK(\"x\")"));
+        assertEquals("'+1", HistoryExportService.escape("+1"));
+        assertEquals("'-2", HistoryExportService.escape("-2"));
+        assertEquals("'@SUM(A1)", HistoryExportService.escape("@SUM(A1)"));
+        assertEquals("'\tx", HistoryExportService.escape("\tx"));
+        assertEquals("\"'=1,2\"", HistoryExportService.escape("=1,2"));
+    }
+
+    @Test
+    void formulaCharactersAfterTheStartAreLeftAlone() {
+        assertEquals("a=b", HistoryExportService.escape("a=b"));
+        assertEquals("2024-01-01", HistoryExportService.escape("2024-01-01"));
+    }
+}
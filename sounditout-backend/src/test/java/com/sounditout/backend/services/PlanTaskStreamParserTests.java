@@ -0,0 +1,97 @@
+package com.sounditout.backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanTaskStreamParserTests {
+
+    private static final String PLAN = """
+            {"week_start":"2024-09-02","goals":"Read {short} vowels",
+             "tasks":[
+               {"day":"Mon","title":"Warm-up","steps":["a","b"],"meta":{"tasks":[1]}},
+               {"day":"Tue","title":"Say \\"cat\\"","steps":[]}
+             ]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void emitsEachTaskWhenItsClosingBraceArrives() throws IOException {
+        PlanTaskStreamParser parser = new PlanTaskStreamParser(objectMapper);
+        int firstEnd = PLAN.indexOf("}},") + 2;
+
+        assertEquals(List.of(), parser.feed(PLAN.substring(0, firstEnd - 1)));
+        List<JsonNode> first = parser.feed(PLAN.substring(firstEnd - 1, firstEnd));
+        assertEquals(1, first.size());
+        assertEquals("Warm-up", first.get(0).get("title").asText());
+        assertEquals(2, first.get(0).get("steps").size());
+
+        List<JsonNode> second = parser.feed(PLAN.substring(firstEnd));
+        assertEquals(1, second.size());
+        assertEquals("Say \"cat\"", second.get(0).get("title").asText());
+        parser.close();
+    }
+
+    @Test
+    void anyChunkingGivesTheSameTasks() throws IOException {
+        JsonNode expected = objectMapper.readTree(PLAN).get("tasks");
+        for (int size = 1; size <= 16; size++) {
+            PlanTaskStreamParser parser = new PlanTaskStreamParser(objectMapper);
+            List<JsonNode> tasks = new ArrayList<>();
+            for (int i = 0; i < PLAN.length(); i += size) {
+                tasks.addAll(parser.feed(PLAN.substring(i, Math.min(i + size, PLAN.length()))));
+            }
+            parser.close();
+
+            assertEquals(expected.size(), tasks.size(), "chunk size " + size);
+            for (int i = 0; i < tasks.size(); i++) {
+                assertEquals(expected.get(i), tasks.get(i), "chunk size " + size);
+            }
+            assertEquals(PLAN, parser.fullText());
+        }
+    }
+
+    @Test
+    void multiByteCharactersInTheirOwnChunks() throws IOException {
+        String plan = "{\"tasks\":[{\"title\":\"é🎵\"}]}";
+        PlanTaskStreamParser parser = new PlanTaskStreamParser(objectMapper);
+        List<JsonNode> tasks = new ArrayList<>();
+        // One code point per chunk (the emoji is a surrogate pair, kept together)
+        plan.codePoints().forEach(cp -> {
+            try {
+                tasks.addAll(parser.feed(Character.toString(cp)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(1, tasks.size());
+        assertEquals("é🎵", tasks.get(0).get("title").asText());
+    }
+
+    @Test
+    void repliesWithoutTasksArrayEmitNothing() throws IOException {
+        PlanTaskStreamParser parser = new PlanTaskStreamParser(objectMapper);
+        assertTrue(parser.feed("[{\"day\":\"Mon\"}]").isEmpty());
+        parser.close();
+        assertEquals("[{\"day\":\"Mon\"}]", parser.fullText());
+
+        PlanTaskStreamParser nested = new PlanTaskStreamParser(objectMapper);
+        assertTrue(nested.feed("{\"plan\":{\"tasks\":[{\"day\":\"Mon\"}]}}").isEmpty());
+        nested.close();
+    }
+
+    @Test
+    void emptyChunksAreIgnored() throws IOException {
+        PlanTaskStreamParser parser = new PlanTaskStreamParser(objectMapper);
+        assertTrue(parser.feed(null).isEmpty());
+        assertTrue(parser.feed("").isEmpty());
+        assertEquals("", parser.fullText());
+    }
+}
@@ -0,0 +1,56 @@
+package com.sounditout.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryEmbeddingCacheTests {
+
+    private static float roundTrip(float f) {
+        return QueryEmbeddingCache.halfToFloat(QueryEmbeddingCache.floatToHalf(f));
+    }
+
+    @Test
+    void representableValuesRoundTripExactly() {
+        float[] values = { 0f, -0f, 1f, -2.5f, 0.5f, 0.099975586f, 65504f, (float) Math.pow(2, -14), (float) Math.pow(2, -24) };
+        assertArrayEquals(values, QueryEmbeddingCache.toFloat(QueryEmbeddingCache.toHalf(values)));
+        assertEquals(Float.floatToIntBits(-0f), Float.floatToIntBits(roundTrip(-0f)));
+    }
+
+    @Test
+    void embeddingRangeStaysWithinHalfPrecision() {
+        Random random = new Random(42);
+        float[] v = new float[1536];
+        for (int i = 0; i < v.length; i++) v[i] = random.nextFloat() * 2 - 1;
+
+        float[] back = QueryEmbeddingCache.toFloat(QueryEmbeddingCache.toHalf(v));
+        assertEquals(v.length, back.length);
+        for (int i = 0; i < v.length; i++) {
+            // 11 significant bits for normal halves, absolute 2^-25 below 2^-14
+            float tolerance = Math.max(Math.abs(v[i]) * 0x1p-11f, 0x1p-25f);
+            assertTrue(Math.abs(v[i] - back[i]) <= tolerance, "element " + i + ": " + v[i] + " -> " + back[i]);
+        }
+    }
+
+    @Test
+    void roundsToNearestEven() {
+        // Half has 10 mantissa bits: steps of 2^-10 just above 1
+        assertEquals(1f, roundTrip(1f + 0x1p-11f));                 // tie, 1.0 is even
+        assertEquals(1f + 0x1p-9f, roundTrip(1f + 3 * 0x1p-11f));   // tie, rounds up to even
+        assertEquals(1f + 0x1p-10f, roundTrip(1f + 0x1p-11f + 0x1p-20f));
+        assertEquals(2f, roundTrip(2f - 0x1p-12f));                 // carry into the exponent
+    }
+
+    @Test
+    void outOfRangeValues() {
+        assertEquals(Float.POSITIVE_INFINITY, roundTrip(70000f));
+        assertEquals(Float.NEGATIVE_INFINITY, roundTrip(Float.NEGATIVE_INFINITY));
+        assertTrue(Float.isNaN(roundTrip(Float.NaN)));
+        assertEquals(0f, roundTrip(1e-10f));
+        assertEquals(Float.floatToIntBits(-0f), Float.floatToIntBits(roundTrip(-1e-10f)));
+    }
+}
@@ -0,0 +1,94 @@
+package com.sounditout.backend.services;
+
+import com.knuddels.jtokkit.api.EncodingType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RagContextAssemblerTests {
+
+    private static Object[] row(String subject, String content) {
+        return new Object[] { 1L, 2L, 3L, subject, content, null, 0.9 };
+    }
+
+    private static String words(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append("phonics ");
+        return sb.toString().trim();
+    }
+
+    @Test
+    void rowsWithinBudgetAreAllIncluded() {
+        RagContextAssembler assembler = new RagContextAssembler(EncodingType.O200K_BASE, 1500, 64);
+
+        RagContextAssembler.Context ctx = assembler.assemble(List.of(
+                row("Vowels", "Read short a words"),
+                row(null, "Blends: st, tr")));
+
+        assertEquals(2, ctx.included());
+        assertEquals(0, ctx.truncated());
+        assertEquals(0, ctx.dropped());
+        assertEquals("Subject: Vowels\nContent: Read short a words\n---\n"
+                + "Subject: \nContent: Blends: st, tr\n---\n", ctx.text());
+        assertTrue(ctx.tokens() > 0 && ctx.tokens() <= 1500);
+    }
+
+    @Test
+    void overflowingRowIsCutAndTheRestDropped() {
+        RagContextAssembler assembler = new RagContextAssembler(EncodingType.O200K_BASE, 200, 20);
+
+        RagContextAssembler.Context ctx = assembler.assemble(List.of(
+                row("A", "Short note"),
+                row("B", words(500)),
+                row("C", "Never reached")));
+
+        assertEquals(2, ctx.included());
+        assertEquals(1, ctx.truncated());
+        assertEquals(1, ctx.dropped());
+        assertTrue(ctx.tokens() <= 200, "tokens " + ctx.tokens());
+        assertTrue(ctx.text().endsWith(" …\n---\n"));
+        assertFalse(ctx.text().contains("Never reached"));
+    }
+
+    @Test
+    void tooLittleRoomDropsTheRowInsteadOfCuttingIt() {
+        RagContextAssembler assembler = new RagContextAssembler(EncodingType.O200K_BASE, 200, 500);
+
+        RagContextAssembler.Context ctx = assembler.assemble(List.of(
+                row("A", "Short note"),
+                row("B", words(500))));
+
+        assertEquals(1, ctx.included());
+        assertEquals(0, ctx.truncated());
+        assertEquals(1, ctx.dropped());
+        assertFalse(ctx.text().contains("Subject: B"));
+    }
+
+    @Test
+    void cutNeverEndsInsideAMultiByteCharacter() {
+        // Emoji and CJK take several byte-level tokens each, so most cut points split one
+        String content = "🎵🎶音読み練習".repeat(200);
+        for (int budget = 60; budget <= 90; budget++) {
+            RagContextAssembler assembler = new RagContextAssembler(EncodingType.O200K_BASE, budget, 5);
+
+            RagContextAssembler.Context ctx = assembler.assemble(List.<Object[]>of(row("Music", content)));
+
+            assertEquals(1, ctx.truncated(), "budget " + budget);
+            assertFalse(ctx.text().contains("\uFFFD"), "budget " + budget);
+            assertTrue(ctx.tokens() <= budget, "budget " + budget + ", tokens " + ctx.tokens());
+        }
+    }
+
+    @Test
+    void noRows() {
+        RagContextAssembler assembler = new RagContextAssembler(EncodingType.O200K_BASE, 1500, 64);
+        RagContextAssembler.Context ctx = assembler.assemble(List.of());
+        assertEquals("", ctx.text());
+        assertEquals(0, ctx.tokens());
+        assertEquals(0, ctx.included());
+    }
+}
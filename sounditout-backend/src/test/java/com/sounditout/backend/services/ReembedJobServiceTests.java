@@ -0,0 +1,124 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.domainLayer.entity.ProgressReport;
+import com.sounditout.backend.domainLayer.entity.ReembedJob;
+import com.sounditout.backend.domainLayer.entity.Student;
+import com.sounditout.backend.domainLayer.enums.ReembedJobStatus;
+import com.sounditout.backend.repositories.ProgressReportRepository;
+import com.sounditout.backend.repositories.ReembedJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReembedJobServiceTests {
+
+    private ReembedJobRepository jobRepository;
+    private ProgressReportRepository progressReportRepository;
+    private ReportEmbeddingBatcher embeddingBatcher;
+    private ReembedJobService service;
+    private ReembedJob job;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(ReembedJobRepository.class);
+        progressReportRepository = mock(ProgressReportRepository.class);
+        embeddingBatcher = mock(ReportEmbeddingBatcher.class);
+        TransactionTemplate tx = mock(TransactionTemplate.class);
+        when(tx.execute(any())).thenAnswer(inv -> ((TransactionCallback<?>) inv.getArgument(0)).doInTransaction(null));
+
+        service = new ReembedJobService(jobRepository, progressReportRepository, embeddingBatcher,
+                new SyncTaskExecutor(), tx);
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "parallelism", 1);
+        ReflectionTestUtils.setField(service, "requestsPerMinute", 60_000);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "lease", Duration.ofMinutes(5));
+
+        // Interrupted after reports 1..10
+        OffsetDateTime started = OffsetDateTime.now().minusHours(1);
+        job = ReembedJob.builder()
+                .id(5L).status(ReembedJobStatus.RUNNING).totalReports(12)
+                .processed(10).embedded(10).lastReportId(10)
+                .startedAt(started).updatedAt(started)
+                .build();
+        when(jobRepository.findFirstByStatusOrderByIdDesc(ReembedJobStatus.RUNNING)).thenReturn(Optional.of(job));
+        when(progressReportRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any()))
+                .thenReturn(List.of(report(11), report(12)));
+        when(progressReportRepository.findByIdGreaterThanOrderByIdAsc(eq(12L), any())).thenReturn(List.of());
+        when(embeddingBatcher.embedAndStore(anyList(), anyBoolean()))
+                .thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+    }
+
+    private static ProgressReport report(long id) {
+        return ProgressReport.builder()
+                .id(id)
+                .lessonTopic("Phonics")
+                .notes("note " + id)
+                .student(Student.builder().id(1L).build())
+                .build();
+    }
+
+    private void awaitFinished() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void resumesFromTheCheckpoint() throws InterruptedException {
+        when(jobRepository.claimLease(any(), anyString(), anyLong())).thenReturn(1);
+
+        service.resumeInterrupted();
+        awaitFinished();
+
+        assertEquals(ReembedJobStatus.COMPLETED, job.getStatus());
+        assertEquals(12, job.getLastReportId());
+        assertEquals(12, job.getProcessed());
+        assertEquals(12, job.getEmbedded());
+        verify(progressReportRepository, never()).findByIdGreaterThanOrderByIdAsc(eq(0L), any());
+    }
+
+    @Test
+    void jobLeasedByAnotherInstanceIsNotResumed() {
+        when(jobRepository.claimLease(any(), anyString(), anyLong())).thenReturn(0);
+
+        service.resumeInterrupted();
+
+        verifyNoInteractions(progressReportRepository, embeddingBatcher);
+    }
+
+    @Test
+    void lostLeaseStopsBeforeTheCheckpoint() {
+        when(jobRepository.claimLease(any(), anyString(), anyLong())).thenReturn(1, 0);
+
+        service.resumeInterrupted();
+
+        verify(jobRepository, timeout(5_000).times(2)).claimLease(eq(5L), anyString(), anyLong());
+        verify(jobRepository, never()).save(any());
+        assertEquals(10, job.getLastReportId());
+    }
+}
@@ -0,0 +1,143 @@
+package com.sounditout.backend.services;
+
+import com.sounditout.backend.repositories.ReportEmbeddingRepository;
+import com.sounditout.backend.repositories.ReportEmbeddingRepositoryCustom.NewEmbedding;
+import com.sounditout.backend.services.ReportEmbeddingBatcher.PendingEmbedding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReportEmbeddingBatcherTests {
+
+    private EmbeddingModel embeddingModel;
+    private ReportEmbeddingRepository embeddingRepo;
+    private ReportEmbeddingBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        embeddingModel = mock(EmbeddingModel.class);
+        embeddingRepo = mock(ReportEmbeddingRepository.class);
+        batcher = new ReportEmbeddingBatcher(embeddingModel, embeddingRepo, mock(StudentVectorIndex.class));
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 64);
+        ReflectionTestUtils.setField(batcher, "maxWait", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(batcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(batcher, "retryBackoff", Duration.ofMillis(1));
+
+        when(embeddingModel.embed(anyList())).thenAnswer(inv -> {
+            List<?> docs = inv.getArgument(0);
+            List<float[]> vectors = new ArrayList<>();
+            for (int i = 0; i < docs.size(); i++) vectors.add(new float[] { i });
+            return vectors;
+        });
+        when(embeddingRepo.upsertEmbeddings(anyList())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+        when(embeddingRepo.findContentHashes(any())).thenReturn(Map.of());
+    }
+
+    private static PendingEmbedding report(long reportId, String content) {
+        return new PendingEmbedding(1L, reportId, "Math", content);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<NewEmbedding> upserted() {
+        ArgumentCaptor<List<NewEmbedding>> rows = ArgumentCaptor.forClass(List.class);
+        verify(embeddingRepo).upsertEmbeddings(rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    void sameReportTwiceKeepsLatestText() {
+        int written = batcher.embedAndStore(List.of(report(7, "old"), report(8, "other"), report(7, "new")), false);
+
+        assertEquals(2, written);
+        List<NewEmbedding> rows = upserted();
+        assertEquals(List.of(7L, 8L), rows.stream().map(NewEmbedding::reportId).toList());
+        assertEquals("new", rows.get(0).content());
+    }
+
+    @Test
+    void unchangedReportsAreSkippedUnlessForced() {
+        PendingEmbedding unchanged = report(7, "same");
+        when(embeddingRepo.findContentHashes(any())).thenReturn(Map.of(7L, unchanged.contentHash()));
+
+        assertEquals(0, batcher.embedAndStore(List.of(unchanged), false));
+        verify(embeddingModel, never()).embed(anyList());
+
+        assertEquals(1, batcher.embedAndStore(List.of(unchanged), true));
+        verify(embeddingModel).embed(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void largeBatchesAreSplitAtTheInputLimit() {
+        List<PendingEmbedding> reports = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) reports.add(report(id, "text " + id));
+
+        assertEquals(5000, batcher.embedAndStore(reports, false));
+
+        ArgumentCaptor<List<String>> docs = ArgumentCaptor.forClass(List.class);
+        verify(embeddingModel, times(3)).embed(docs.capture());
+        assertEquals(List.of(2048, 2048, 904), docs.getAllValues().stream().map(List::size).toList());
+    }
+
+    @Test
+    void failedFlushIsRetried() throws InterruptedException {
+        when(embeddingModel.embed(anyList()))
+                .thenThrow(new IllegalStateException("rate limited"))
+                .thenReturn(List.of(new float[] { 1 }));
+
+        batcher.flushWithRetry(List.of(report(7, "text")));
+
+        verify(embeddingModel, times(2)).embed(anyList());
+        assertEquals(1, upserted().size());
+    }
+
+    @Test
+    void batchIsDroppedAfterLastAttempt() throws InterruptedException {
+        when(embeddingModel.embed(anyList())).thenThrow(new IllegalStateException("down"));
+
+        batcher.flushWithRetry(List.of(report(7, "text")));
+
+        verify(embeddingModel, times(3)).embed(anyList());
+        verify(embeddingRepo, never()).upsertEmbeddings(anyList());
+    }
+
+    @Test
+    void submittedReportsAreFlushedTogether() throws InterruptedException {
+        batcher.start();
+        try {
+            batcher.submit(report(1, "a"));
+            batcher.submit(report(2, "b"));
+            verify(embeddingRepo, timeout(2000)).upsertEmbeddings(anyList());
+        } finally {
+            batcher.stop();
+        }
+        assertEquals(2, upserted().size());
+    }
+
+    @Test
+    void stopWritesWhatIsStillQueued() throws InterruptedException {
+        ReflectionTestUtils.setField(batcher, "maxWait", Duration.ofMillis(500));
+        batcher.start();
+        batcher.submit(report(1, "a"));
+        batcher.stop();
+
+        verify(embeddingRepo).upsertEmbeddings(anyList());
+    }
+}
@@ -0,0 +1,41 @@
+package com.sounditout.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StudyCoachServiceTests {
+
+    private static Object[] row(long id, double score) {
+        return new Object[] { id, 1L, id * 10, "Phonics", "content " + id, null, score };
+    }
+
+    @Test
+    void fuseRrfSumsBothLegs() {
+        List<Object[]> vector = List.of(row(2, 0.9), row(1, 0.8), row(3, 0.7));
+        List<Object[]> lexical = List.of(row(1, 0.8), row(4, 0.1));
+
+        List<Object[]> fused = StudyCoachService.fuseRrf(vector, lexical, 60, 10);
+
+        assertEquals(List.of(1L, 2L, 4L, 3L), fused.stream().map(r -> (Long) r[0]).toList());
+        assertEquals(1 / 62.0 + 1 / 61.0, (double) fused.get(0)[7], 1e-12);
+        assertEquals(1L, fused.get(0)[8]);
+        assertNull(fused.get(1)[8]);
+        assertEquals(2L, fused.get(2)[8]);
+        assertEquals(0.1, (double) fused.get(2)[6]);   // lexical-only rows keep their cosine score
+    }
+
+    @Test
+    void fuseRrfBreaksTiesByIdAndLimits() {
+        List<Object[]> vector = List.<Object[]>of(row(5, 0.9));
+        List<Object[]> lexical = List.<Object[]>of(row(3, 0.2));
+
+        List<Object[]> fused = StudyCoachService.fuseRrf(vector, lexical, 60, 1);
+
+        assertEquals(1, fused.size());
+        assertEquals(3L, fused.get(0)[0]);
+    }
+}
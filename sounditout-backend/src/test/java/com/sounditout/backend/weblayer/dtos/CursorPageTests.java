@@ -0,0 +1,53 @@
+package com.sounditout.backend.weblayer.dtos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CursorPageTests {
+
+    private record Row(long id, String name) { }
+
+    @Test
+    void extraRowMeansThereIsANextPage() {
+        List<Row> rows = List.of(new Row(3, "a"), new Row(5, "b"), new Row(9, "c"));
+
+        CursorPage<String> page = CursorPage.of(rows, 2, Row::id, Row::name);
+
+        assertEquals(List.of("a", "b"), page.getItems());
+        assertEquals(5L, page.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        List<Row> rows = List.of(new Row(3, "a"), new Row(5, "b"));
+
+        CursorPage<String> full = CursorPage.of(rows, 2, Row::id, Row::name);
+        assertEquals(List.of("a", "b"), full.getItems());
+        assertNull(full.getNextCursor());
+
+        CursorPage<String> partial = CursorPage.of(rows, 10, Row::id, Row::name);
+        assertEquals(2, partial.getItems().size());
+        assertNull(partial.getNextCursor());
+    }
+
+    @Test
+    void emptyPage() {
+        CursorPage<Row> page = CursorPage.of(List.<Row>of(), 5, Row::id);
+        assertEquals(List.of(), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void projectionRowsAreKeptAsTheyAre() {
+        List<Row> rows = List.of(new Row(1, "a"), new Row(2, "b"));
+
+        CursorPage<Row> page = CursorPage.of(rows, 1, Row::id);
+
+        assertEquals(List.of(new Row(1, "a")), page.getItems());
+        assertEquals(1L, page.getNextCursor());
+    }
+}
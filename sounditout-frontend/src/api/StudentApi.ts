@@ -2,12 +2,25 @@ import api from './axios';
 import { Student, StudentDTO } from '../types/Student';
 import { ProgressReport } from '../types/ProgressReport';
 
+// Keyset page: pass nextCursor back as `after` for the next page; null = last page
+export interface CursorPage<T> {
+    items: T[];
+    nextCursor: number | null;
+}
+
 // Updated return types for consistent typing
 export const getAllStudents = async (): Promise<Student[]> => {
     const res = await api.get<Student[]>('/students');
     return res.data;
 };
 
+export const getStudentsPage = async (after: number | null, limit = 50): Promise<CursorPage<Student>> => {
+    const res = await api.get<CursorPage<Student>>('/students/page', {
+        params: after === null ? { limit } : { limit, after },
+    });
+    return res.data;
+};
+
 export const searchStudentsByName = async (name: string): Promise<Student[]> => {
     const res = await api.get<Student[]>(`/students/search`, { params: { name } });
     return res.data;
@@ -2,7 +2,7 @@ import React, { useEffect, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import StudentCard from '../components/StudentCard';
 import SearchBar from '../components/SearchBar';
-import { getAllStudents, searchStudentsByName } from '../api/StudentApi';
+import { getStudentsPage, searchStudentsByName } from '../api/StudentApi';
 
 interface Student {
     id: number;
@@ -11,13 +11,29 @@ interface Student {
 
 const AdminDashboard: React.FC = () => {
     const [students, setStudents] = useState<Student[]>([]);
+    // Cursor of the next page of the full list; null once everything is shown (or while searching)
+    const [nextCursor, setNextCursor] = useState<number | null>(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [search, setSearch] = useState('');
     const [darkMode, setDarkMode] = useState(localStorage.getItem('theme') === 'dark');
     const navigate = useNavigate();
 
     const fetchStudents = async () => {
-        const res = await getAllStudents();
-        setStudents(res);
+        const page = await getStudentsPage(null);
+        setStudents(page.items);
+        setNextCursor(page.nextCursor);
+    };
+
+    const loadMore = async () => {
+        if (nextCursor === null) return;
+        setLoadingMore(true);
+        try {
+            const page = await getStudentsPage(nextCursor);
+            setStudents((prev) => [...prev, ...page.items]);
+            setNextCursor(page.nextCursor);
+        } finally {
+            setLoadingMore(false);
+        }
     };
 
     const handleSearch = async (value: string) => {
@@ -25,6 +41,7 @@ const AdminDashboard: React.FC = () => {
         if (value.trim()) {
             const res = await searchStudentsByName(value);
             setStudents(res);
+            setNextCursor(null);
         } else {
             fetchStudents();
         }
@@ -97,6 +114,18 @@ const AdminDashboard: React.FC = () => {
                     ))}
                 </div>
 
+                {nextCursor !== null && (
+                    <div className="text-center mt-6">
+                        <button
+                            onClick={loadMore}
+                            disabled={loadingMore}
+                            className="px-3 py-1 text-sm rounded border bg-gray-100 text-gray-800 border-gray-300 hover:bg-gray-200 disabled:opacity-50"
+                        >
+                            {loadingMore ? 'Loading...' : 'Load more'}
+                        </button>
+                    </div>
+                )}
+
                 {/* Empty state */}
                 {students.length === 0 && (
                     <div className="text-center text-sm text-gray-600 dark:text-gray-300 mt-6">